@@ -4,9 +4,12 @@ import java.sql.SQLException;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import destination.dao.Page;
 import destination.entity.Member;
 import destination.exception.DestinationException;
+import destination.metrics.TextMetricsExporter;
 import destination.service.DestinationService;
+import destination.workload.WorkloadRunner;
 
 /**
  * This is the main app (with the main method). It demonstrates CRUD operations
@@ -17,6 +20,8 @@ import destination.service.DestinationService;
  */
 public class DestinationsApp {
 
+  private static final int MEMBER_PAGE_SIZE = 20;
+
   private Scanner scanner = new Scanner(System.in);
   private DestinationService destinationService = new DestinationService();
 
@@ -26,16 +31,24 @@ public class DestinationsApp {
       "2) Add a member",
       "3) List all members",
       "4) Modify a member",
-      "5) Delete a member"
+      "5) Delete a member",
+      "6) Show performance metrics"
   ); // @formatter:on
 
   /**
-   * The main method (entry point for Java application).
+   * The main method (entry point for Java application). With no arguments, the
+   * interactive menu is shown. With {@code --workload} and the options
+   * described in {@link WorkloadRunner}, a scripted workload is run instead.
    * 
-   * @param args Unused but required
+   * @param args The command line arguments
    */
   public static void main(String[] args) {
-    new DestinationsApp().showMenu();
+    if(List.of(args).contains("--workload")) {
+      WorkloadRunner.main(args);
+    }
+    else {
+      new DestinationsApp().showMenu();
+    }
   }
 
   /**
@@ -77,6 +90,10 @@ public class DestinationsApp {
             deleteMember();
             break;
 
+          case 6:
+            showMetrics();
+            break;
+
           default:
             System.out.println("'" + selection + "' is not valid. Try again.");
             break;
@@ -119,20 +136,24 @@ public class DestinationsApp {
   }
 
   /**
-   * List all members.
+   * List the members a page at a time. After each page, the user can press
+   * Enter to see the next page or enter anything else to stop.
    * 
    * @throws SQLException
    */
   private void listMembers() throws SQLException {
     System.out.println("Here are the members:");
 
-    destinationService.fetchAllMembers()
-        .forEach(member -> System.out.println("   " + member));
+    String pageToken = null;
 
-    /* The Lambda can be replaced with an enhanced for loop. */
-    // for(Member member : destinationService.fetchAllMembers()) {
-    // System.out.println(" " + member);
-    // }
+    do {
+      Page<Member> page =
+          destinationService.fetchMemberPage(pageToken, MEMBER_PAGE_SIZE);
+
+      page.getItems().forEach(member -> System.out.println("   " + member));
+      pageToken = page.getNextPageToken();
+    } while (Objects.nonNull(pageToken) && Objects.isNull(
+        getStringInput("Press Enter for more members (anything else stops)")));
   }
 
   /**
@@ -181,6 +202,19 @@ public class DestinationsApp {
         .build(); // @formatter:on
   }
 
+  /**
+   * Print the latency and error metrics for each operation, followed by the
+   * connection pool and member cache counters.
+   */
+  private void showMetrics() {
+    destinationService.exportMetrics(new TextMetricsExporter(System.out));
+
+    System.out.println();
+    System.out.println(destinationService.getPoolStats());
+    System.out.println(destinationService.getMemberCacheStats());
+    System.out.println(destinationService.getCommentWriterStats());
+  }
+
   /**
    * Create (or recreate) the tables. This will delete any data already in the
    * tables.
@@ -194,6 +228,7 @@ public class DestinationsApp {
    * Print a message and exit the menu.
    */
   private void exitMenu() {
+    destinationService.shutdown();
     System.out.println("\nThanks for using the menu. TTFN!");
   }
 
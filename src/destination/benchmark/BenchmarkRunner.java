@@ -0,0 +1,310 @@
+package destination.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import destination.exception.DestinationException;
+
+/**
+ * A small benchmark harness in the style of JMH. Each benchmark is run for a
+ * number of warmup iterations (so the JIT compiler can do its work) and then
+ * for a number of measured iterations. Each iteration calls the operation
+ * repeatedly for a fixed amount of time (at least once) and records the
+ * average time per call.
+ * <p>
+ * The results can be written as JSON in the same layout that JMH uses with
+ * {@code -rf json}, so the usual JMH result viewers and comparison tools can
+ * be used to compare runs between releases.
+ *
+ * @author Promineo
+ *
+ */
+public class BenchmarkRunner {
+  /*
+   * Two-sided Student's t critical values for a 99.9% confidence interval,
+   * indexed by degrees of freedom (1 to 30). JMH reports the same interval.
+   */
+  private static final double[] T_999 = {0, 636.619, 31.599, 12.924, 8.610,
+      6.869, 5.959, 5.408, 5.041, 4.781, 4.587, 4.437, 4.318, 4.221, 4.140,
+      4.073, 4.015, 3.965, 3.922, 3.883, 3.850, 3.819, 3.792, 3.768, 3.745,
+      3.725, 3.707, 3.690, 3.674, 3.659, 3.646};
+  private static final double T_999_LARGE = 3.291;
+
+  private final int warmupIterations;
+  private final int measurementIterations;
+  private final long iterationNanos;
+  private final List<Result> results = new ArrayList<>();
+
+  /* Results are folded into this so the JIT can't remove the operation. */
+  private volatile int sink;
+
+  /**
+   * Create the runner.
+   *
+   * @param warmupIterations The number of iterations that are not measured.
+   * @param measurementIterations The number of measured iterations.
+   * @param iterationTime How long each iteration runs.
+   */
+  public BenchmarkRunner(int warmupIterations, int measurementIterations,
+      Duration iterationTime) {
+    this.warmupIterations = warmupIterations;
+    this.measurementIterations = measurementIterations;
+    this.iterationNanos = iterationTime.toNanos();
+  }
+
+  /**
+   * Run a benchmark and keep the result.
+   *
+   * @param name The benchmark name.
+   * @param params The benchmark parameters (e.g., the number of rows).
+   * @param operation The code being measured.
+   * @return The result.
+   */
+  public Result run(String name, Map<String, String> params,
+      Operation operation) {
+    System.out.printf("# Benchmark: %s %s%n", name, params);
+
+    try {
+      for(int iteration = 1; iteration <= warmupIterations; iteration++) {
+        double micros = iterate(operation);
+        System.out.printf("# Warmup Iteration %d: %.3f us/op%n", iteration,
+            micros);
+      }
+
+      double[] samples = new double[measurementIterations];
+
+      for(int iteration = 0; iteration < measurementIterations; iteration++) {
+        samples[iteration] = iterate(operation);
+        System.out.printf("Iteration %d: %.3f us/op%n", iteration + 1,
+            samples[iteration]);
+      }
+
+      Result result = new Result(name, params, samples);
+      results.add(result);
+
+      System.out.println(result);
+      System.out.println();
+
+      return result;
+    }
+    catch (Exception e) {
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * Call the operation repeatedly for one iteration.
+   *
+   * @param operation The code being measured.
+   * @return The average time per call in microseconds.
+   * @throws Exception Thrown by the operation.
+   */
+  private double iterate(Operation operation) throws Exception {
+    long calls = 0;
+    long start = System.nanoTime();
+    long elapsed;
+
+    do {
+      Object value = operation.run();
+      sink += System.identityHashCode(value);
+      calls++;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < iterationNanos);
+
+    return elapsed / 1000.0 / calls;
+  }
+
+  /**
+   * Return the results of all the benchmarks that have been run.
+   *
+   * @return The results.
+   */
+  public List<Result> getResults() {
+    return results;
+  }
+
+  /**
+   * Write the results as JMH-compatible JSON.
+   *
+   * @param file The file to write.
+   */
+  public void writeJson(Path file) {
+    StringBuilder json = new StringBuilder("[\n");
+
+    for(int index = 0; index < results.size(); index++) {
+      if(index > 0) {
+        json.append(",\n");
+      }
+
+      results.get(index).appendJson(json);
+    }
+
+    json.append("\n]\n");
+
+    try {
+      Files.writeString(file, json);
+    }
+    catch (IOException e) {
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * The code being measured. The return value is consumed by the runner so the
+   * JIT compiler can't optimize the work away.
+   */
+  @FunctionalInterface
+  public interface Operation {
+    Object run() throws Exception;
+  }
+
+  /**
+   * The result of one benchmark: the average time per call for each measured
+   * iteration, plus the mean and its 99.9% confidence interval.
+   *
+   * @author Promineo
+   *
+   */
+  public class Result {
+    private final String name;
+    private final Map<String, String> params;
+    private final double[] samples;
+    private final double score;
+    private final double scoreError;
+
+    private Result(String name, Map<String, String> params, double[] samples) {
+      this.name = name;
+      this.params = new LinkedHashMap<>(params);
+      this.samples = samples;
+
+      double sum = 0;
+
+      for(double sample : samples) {
+        sum += sample;
+      }
+
+      this.score = sum / samples.length;
+
+      double squares = 0;
+
+      for(double sample : samples) {
+        squares += (sample - score) * (sample - score);
+      }
+
+      int degrees = samples.length - 1;
+
+      if(degrees < 1) {
+        this.scoreError = Double.NaN;
+      }
+      else {
+        double t = degrees < T_999.length ? T_999[degrees] : T_999_LARGE;
+        this.scoreError =
+            t * Math.sqrt(squares / degrees) / Math.sqrt(samples.length);
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Map<String, String> getParams() {
+      return params;
+    }
+
+    public double getScore() {
+      return score;
+    }
+
+    public double getScoreError() {
+      return scoreError;
+    }
+
+    /**
+     * Append this result as a JMH-style JSON object.
+     *
+     * @param json The JSON being built.
+     */
+    private void appendJson(StringBuilder json) {
+      json.append("  {\n");
+      json.append("    \"benchmark\" : \"").append(name).append("\",\n");
+      json.append("    \"mode\" : \"avgt\",\n");
+      json.append("    \"threads\" : 1,\n");
+      json.append("    \"forks\" : 1,\n");
+      json.append("    \"jvm\" : \"")
+          .append(escape(System.getProperty("java.home"))).append("\",\n");
+      json.append("    \"jdkVersion\" : \"")
+          .append(System.getProperty("java.version")).append("\",\n");
+      json.append("    \"warmupIterations\" : ").append(warmupIterations)
+          .append(",\n");
+      json.append("    \"warmupTime\" : \"")
+          .append(iterationNanos / 1_000_000).append(" ms\",\n");
+      json.append("    \"measurementIterations\" : ")
+          .append(measurementIterations).append(",\n");
+      json.append("    \"measurementTime\" : \"")
+          .append(iterationNanos / 1_000_000).append(" ms\",\n");
+
+      json.append("    \"params\" : {");
+      String separator = "\n";
+
+      for(Map.Entry<String, String> param : params.entrySet()) {
+        json.append(separator).append("      \"")
+            .append(escape(param.getKey())).append("\" : \"")
+            .append(escape(param.getValue())).append("\"");
+        separator = ",\n";
+      }
+
+      json.append(params.isEmpty() ? "},\n" : "\n    },\n");
+
+      json.append("    \"primaryMetric\" : {\n");
+      json.append("      \"score\" : ").append(number(score)).append(",\n");
+      json.append("      \"scoreError\" : ").append(number(scoreError))
+          .append(",\n");
+      json.append("      \"scoreConfidence\" : [ ")
+          .append(number(score - scoreError)).append(", ")
+          .append(number(score + scoreError)).append(" ],\n");
+      json.append("      \"scoreUnit\" : \"us/op\",\n");
+      json.append("      \"rawData\" : [ [ ");
+
+      for(int index = 0; index < samples.length; index++) {
+        json.append(index > 0 ? ", " : "").append(number(samples[index]));
+      }
+
+      json.append(" ] ]\n");
+      json.append("    },\n");
+      json.append("    \"secondaryMetrics\" : {}\n");
+      json.append("  }");
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Result \"%s\" %s: %.3f +-(99.9%%) %.3f us/op",
+          name, params, score, scoreError);
+    }
+  }
+
+  /**
+   * JSON has no NaN, so an undefined value is written as the string "NaN" the
+   * way JMH does.
+   *
+   * @param value The number.
+   * @return The JSON text for the number.
+   */
+  private static String number(double value) {
+    return Double.isNaN(value) ? "\"NaN\"" : Double.toString(value);
+  }
+
+  /**
+   * Escape backslashes and quotes for a JSON string.
+   *
+   * @param value The string.
+   * @return The escaped string.
+   */
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
@@ -0,0 +1,249 @@
+package destination.benchmark;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import destination.dao.DestinationDao;
+import destination.entity.Member;
+import destination.exception.DestinationException;
+import destination.service.DestinationService;
+
+/**
+ * Benchmarks for the data access, row mapping and SQL building code. Run it
+ * like this:
+ *
+ * <pre>
+ * java destination.benchmark.DestinationBenchmarks --db --rows=1000,100000
+ *     --warmup=3 --iterations=5 --time=2 --out=benchmark-results.json
+ * </pre>
+ *
+ * The options are:
+ * <ul>
+ * <li>{@code --db} Also run the benchmarks that use the database. These
+ * <b>drop and recreate the tables</b> in the schema that {@code DbConnection}
+ * connects to, so point it at a local MySQL instance that holds nothing you
+ * want to keep. Without this, only the in-memory benchmarks are run.</li>
+ * <li>{@code --rows} The table sizes for the fetch benchmarks (default
+ * 1000,100000,1000000).</li>
+ * <li>{@code --warmup}, {@code --iterations} The number of warmup and measured
+ * iterations (default 3 and 5).</li>
+ * <li>{@code --time} The length of each iteration in seconds (default 2).</li>
+ * <li>{@code --include} A regular expression. Only benchmarks whose name
+ * contains a match are run.</li>
+ * <li>{@code --out} The JSON results file (default
+ * benchmark-results.json).</li>
+ * </ul>
+ *
+ * @author Promineo
+ *
+ */
+public class DestinationBenchmarks {
+  private static final String PREFIX = DestinationBenchmarks.class.getName();
+
+  private final BenchmarkRunner runner;
+  private final Pattern include;
+  private final DestinationService destinationService =
+      new DestinationService();
+  private final DestinationDao destinationDao = new DestinationDao();
+
+  private int emailSequence;
+
+  /**
+   * The entry point.
+   *
+   * @param args The options described in the class comment.
+   */
+  public static void main(String[] args) {
+    Map<String, String> options = parseOptions(args);
+
+    BenchmarkRunner runner = new BenchmarkRunner(
+        Integer.parseInt(options.getOrDefault("warmup", "3")),
+        Integer.parseInt(options.getOrDefault("iterations", "5")),
+        Duration.ofSeconds(Long.parseLong(options.getOrDefault("time", "2"))));
+
+    Pattern include = Pattern.compile(options.getOrDefault("include", ""));
+    DestinationBenchmarks benchmarks =
+        new DestinationBenchmarks(runner, include);
+
+    try {
+      benchmarks.runInMemoryBenchmarks();
+
+      if(options.containsKey("db")) {
+        int[] rowCounts = Stream
+            .of(options.getOrDefault("rows", "1000,100000,1000000").split(","))
+            .mapToInt(rows -> Integer.parseInt(rows.trim())).toArray();
+
+        benchmarks.runDatabaseBenchmarks(rowCounts);
+      }
+    }
+    finally {
+      benchmarks.destinationService.shutdown();
+    }
+
+    Path out =
+        Path.of(options.getOrDefault("out", "benchmark-results.json"));
+    runner.writeJson(out);
+
+    System.out.println("Results written to " + out.toAbsolutePath());
+  }
+
+  /**
+   * Convert "--name=value" arguments into a map. An argument without a value
+   * (like "--db") maps to an empty string.
+   *
+   * @param args The command line arguments.
+   * @return The options.
+   */
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new HashMap<>();
+
+    for(String arg : args) {
+      if(!arg.startsWith("--")) {
+        throw new DestinationException("'" + arg + "' is not a valid option.");
+      }
+
+      int equals = arg.indexOf('=');
+
+      if(equals < 0) {
+        options.put(arg.substring(2), "");
+      }
+      else {
+        options.put(arg.substring(2, equals), arg.substring(equals + 1));
+      }
+    }
+
+    return options;
+  }
+
+  private DestinationBenchmarks(BenchmarkRunner runner, Pattern include) {
+    this.runner = runner;
+    this.include = include;
+  }
+
+  /**
+   * Run a benchmark if its name matches the include pattern.
+   *
+   * @param name The short benchmark name.
+   * @param params The benchmark parameters.
+   * @param operation The code being measured.
+   */
+  private void run(String name, Map<String, String> params,
+      BenchmarkRunner.Operation operation) {
+    String fullName = PREFIX + "." + name;
+
+    if(include.matcher(fullName).find()) {
+      runner.run(fullName, params, operation);
+    }
+  }
+
+  /**
+   * The benchmarks that don't touch the database.
+   */
+  private void runInMemoryBenchmarks() {
+    run("memberBuilder", Map.of(), () -> benchmarkMember(++emailSequence));
+
+    int[] columns = {0};
+
+    run("buildModifySql", Map.of(), () -> {
+      /* Cycle through all 31 column combinations. */
+      columns[0] = columns[0] % 31 + 1;
+      return DestinationDao.buildModifySql(columns[0]);
+    });
+
+    Member member = benchmarkMember(1);
+
+    run("modifiedColumns", Map.of(),
+        () -> DestinationDao.modifiedColumns(member));
+
+    run("loadFromFile", Map.of(),
+        () -> destinationService.loadFromFile("destination_schema.sql"));
+  }
+
+  /**
+   * The benchmarks that use the database. Each table size gets freshly
+   * created tables loaded with that many members.
+   *
+   * @param rowCounts The table sizes for the fetch benchmarks.
+   */
+  private void runDatabaseBenchmarks(int[] rowCounts) {
+    for(int rows : rowCounts) {
+      Map<String, String> params = Map.of("rows", Integer.toString(rows));
+
+      seedMembers(rows);
+
+      run("fetchAllMembers", params,
+          () -> destinationDao.fetchAllMembers().size());
+
+      run("streamAllMembers", params, () -> {
+        try (Stream<Member> members = destinationDao.streamAllMembers(1000)) {
+          return members.count();
+        }
+      });
+    }
+
+    int rows = rowCounts.length == 0 ? 1000 : rowCounts[0];
+    Map<String, String> params = Map.of("rows", Integer.toString(rows));
+
+    seedMembers(rows);
+
+    int[] memberId = {0};
+
+    run("modifyMember", params, () -> {
+      memberId[0] = memberId[0] % rows + 1;
+
+      destinationDao.modifyMember(Member.builder().memberId(memberId[0])
+          .firstName("First" + memberId[0]).build());
+      return memberId[0];
+    });
+
+    run("createMember", params, () -> {
+      destinationDao.createMember(benchmarkMember(++emailSequence));
+      return emailSequence;
+    });
+  }
+
+  /**
+   * Recreate the tables and load them with the given number of members.
+   *
+   * @param rows The number of members.
+   */
+  private void seedMembers(int rows) {
+    System.out.printf("# Loading %d members...%n", rows);
+
+    destinationService.createTables();
+    emailSequence = rows;
+
+    Iterable<Member> members =
+        () -> IntStream.rangeClosed(1, rows).mapToObj(this::benchmarkMember)
+            .iterator();
+
+    List<?> failures = destinationService.createMembers(members).getFailures();
+
+    if(!failures.isEmpty()) {
+      throw new DestinationException(
+          failures.size() + " members could not be loaded: " + failures.get(0));
+    }
+  }
+
+  /**
+   * Create a member with a unique email address.
+   *
+   * @param sequence The number that makes the member unique.
+   * @return The member.
+   */
+  private Member benchmarkMember(int sequence) {
+    // @formatter:off
+    return Member.builder()
+        .firstName("First" + sequence)
+        .lastName("Last" + sequence)
+        .email("member" + sequence + "@example.com")
+        .phoneNumber("555-" + sequence)
+        .password("password" + sequence)
+        .build(); // @formatter:on
+  }
+}
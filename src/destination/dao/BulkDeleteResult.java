@@ -0,0 +1,76 @@
+package destination.dao;
+
+/**
+ * This holds the running totals of a bulk member delete. The same object is
+ * passed to the progress callback after each chunk and returned at the end.
+ *
+ * @author Promineo
+ *
+ */
+public class BulkDeleteResult {
+  private final int requestedMembers;
+  private int processedMembers;
+  private int chunks;
+  private long commentsDeleted;
+  private long destinationsDeleted;
+  private long membersDeleted;
+
+  BulkDeleteResult(int requestedMembers) {
+    this.requestedMembers = requestedMembers;
+  }
+
+  /**
+   * Add the rows deleted by one committed chunk.
+   */
+  void addChunk(int members, long comments, long destinations,
+      long deletedMembers) {
+    processedMembers += members;
+    chunks++;
+    commentsDeleted += comments;
+    destinationsDeleted += destinations;
+    membersDeleted += deletedMembers;
+  }
+
+  /**
+   * Return the number of member IDs that were passed in.
+   *
+   * @return The number of member IDs.
+   */
+  public int getRequestedMembers() {
+    return requestedMembers;
+  }
+
+  /**
+   * Return the number of member IDs handled so far. IDs of members that don't
+   * exist are counted here but not in {@link #getMembersDeleted()}.
+   *
+   * @return The number of member IDs handled.
+   */
+  public int getProcessedMembers() {
+    return processedMembers;
+  }
+
+  public int getChunks() {
+    return chunks;
+  }
+
+  public long getCommentsDeleted() {
+    return commentsDeleted;
+  }
+
+  public long getDestinationsDeleted() {
+    return destinationsDeleted;
+  }
+
+  public long getMembersDeleted() {
+    return membersDeleted;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkDeleteResult [processed=" + processedMembers + "/"
+        + requestedMembers + ", chunks=" + chunks + ", comments="
+        + commentsDeleted + ", destinations=" + destinationsDeleted
+        + ", members=" + membersDeleted + "]";
+  }
+}
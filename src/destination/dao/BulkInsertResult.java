@@ -0,0 +1,113 @@
+package destination.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import destination.entity.Member;
+
+/**
+ * This holds the outcome of a bulk insert. There is one entry in
+ * {@link #getGeneratedIds()} for each row that was passed in, in the same
+ * order. If a row could not be inserted, its entry is {@code null} and the row
+ * is described in {@link #getFailures()}.
+ *
+ * @author Promineo
+ *
+ */
+public class BulkInsertResult {
+  private final List<Integer> generatedIds = new ArrayList<>();
+  private final List<RowFailure> failures = new ArrayList<>();
+
+  /**
+   * Record a row that was inserted.
+   *
+   * @param id The generated ID.
+   */
+  void addInserted(Integer id) {
+    generatedIds.add(id);
+  }
+
+  /**
+   * Record a row that was rejected by the database.
+   *
+   * @param member The member that was not inserted.
+   * @param e The exception thrown for the row.
+   */
+  void addFailure(Member member, SQLException e) {
+    failures.add(new RowFailure(generatedIds.size(), member, e));
+    generatedIds.add(null);
+  }
+
+  public List<Integer> getGeneratedIds() {
+    return Collections.unmodifiableList(generatedIds);
+  }
+
+  public List<RowFailure> getFailures() {
+    return Collections.unmodifiableList(failures);
+  }
+
+  public int getInsertedCount() {
+    return generatedIds.size() - failures.size();
+  }
+
+  public int getFailedCount() {
+    return failures.size();
+  }
+
+  @Override
+  public String toString() {
+    return "BulkInsertResult [inserted=" + getInsertedCount() + ", failed="
+        + getFailedCount() + "]";
+  }
+
+  /**
+   * A row that could not be inserted. The row index is the position of the row
+   * in the input (starting at 0).
+   *
+   * @author Promineo
+   *
+   */
+  public static class RowFailure {
+    private final int rowIndex;
+    private final Member member;
+    private final String sqlState;
+    private final int errorCode;
+    private final String message;
+
+    private RowFailure(int rowIndex, Member member, SQLException e) {
+      this.rowIndex = rowIndex;
+      this.member = member;
+      this.sqlState = e.getSQLState();
+      this.errorCode = e.getErrorCode();
+      this.message = e.getMessage();
+    }
+
+    public int getRowIndex() {
+      return rowIndex;
+    }
+
+    public Member getMember() {
+      return member;
+    }
+
+    public String getSqlState() {
+      return sqlState;
+    }
+
+    public int getErrorCode() {
+      return errorCode;
+    }
+
+    public String getMessage() {
+      return message;
+    }
+
+    @Override
+    public String toString() {
+      return "RowFailure [rowIndex=" + rowIndex + ", email="
+          + member.getEmail() + ", sqlState=" + sqlState + ", errorCode="
+          + errorCode + ", message=" + message + "]";
+    }
+  }
+}
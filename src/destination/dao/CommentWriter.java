@@ -0,0 +1,648 @@
+package destination.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import destination.entity.Comment;
+import destination.exception.DestinationException;
+import destination.metrics.Metrics;
+import destination.metrics.OperationMetrics;
+
+/**
+ * A write-behind buffer for comments. Comments are the highest volume write,
+ * and a burst of comments on a popular destination would otherwise mean one
+ * INSERT round trip (and one commit) per comment. Instead, {@link #submit}
+ * puts the comment in a bounded buffer and returns right away. A background
+ * thread writes the buffered comments in batches, each batch as one multi-row
+ * INSERT in one transaction. A batch is written when {@code batchSize}
+ * comments are waiting or when the oldest comment has waited
+ * {@code flushInterval}, whichever comes first.
+ * <p>
+ * When the buffer is full, {@code submit} blocks (up to {@code maxEnqueueWait})
+ * until the background thread makes room. This backpressure keeps a burst
+ * from using unbounded memory. {@link #flush()} waits until everything
+ * submitted so far has been written, and {@link #close()} writes everything
+ * that is left before it returns.
+ * <p>
+ * The writer is created with the {@link Builder}:
+ *
+ * <pre>
+ * <code>
+ * CommentWriter writer = CommentWriter.builder()
+ *     .capacity(10_000)
+ *     .batchSize(500)
+ *     .flushInterval(Duration.ofMillis(200))
+ *     .build();
+ * </code>
+ * </pre>
+ *
+ * @author Promineo
+ *
+ */
+public class CommentWriter implements AutoCloseable {
+  private static final String INSERT_PREFIX = "INSERT INTO comments "
+      + "(member_id, destination_id, comment, publish_timestamp) VALUES ";
+  private static final String VALUES_ROW =
+      "(?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))";
+
+  private static final OperationMetrics FLUSH =
+      Metrics.operation("commentWriter.flush");
+  private static final OperationMetrics ENQUEUE_WAIT =
+      Metrics.operation("commentWriter.enqueueWait");
+
+  private final int capacity;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final long maxEnqueueWaitNanos;
+
+  /* The INSERT statement for a full batch is built once. */
+  private final String fullBatchSql;
+
+  /*
+   * The buffer and the sequence numbers are guarded by the lock. Every comment
+   * gets the next sequence number when it is submitted. Batches are written in
+   * order by one thread, so writtenSequence is the sequence number of the last
+   * comment written. A flush waits for writtenSequence to catch up.
+   */
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final Condition written = lock.newCondition();
+  private final ArrayDeque<PendingComment> buffer = new ArrayDeque<>();
+  private long submittedSequence;
+  private long writtenSequence;
+  private boolean flushRequested;
+  private boolean closed;
+
+  private final Thread flusher;
+
+  /* Counters. These are read by getStats(). */
+  private final AtomicLong maxQueueDepth = new AtomicLong();
+  private final LongAdder commentsWritten = new LongAdder();
+  private final LongAdder commentsFailed = new LongAdder();
+  private final LongAdder batchesWritten = new LongAdder();
+  private final LongAdder backpressureWaits = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * This constructor is private and is called by the Builder. It starts the
+   * background thread that writes the batches.
+   *
+   * @param builder The builder holding the configuration.
+   */
+  private CommentWriter(Builder builder) {
+    if(builder.batchSize < 1 || builder.capacity < builder.batchSize) {
+      throw new DestinationException("Invalid comment writer size: capacity="
+          + builder.capacity + ", batchSize=" + builder.batchSize);
+    }
+
+    this.capacity = builder.capacity;
+    this.batchSize = builder.batchSize;
+    this.flushIntervalNanos = builder.flushInterval.toNanos();
+    this.maxEnqueueWaitNanos = builder.maxEnqueueWait.toNanos();
+    this.fullBatchSql = insertSql(batchSize);
+
+    this.flusher = new Thread(this::writeBatches, "comment-writer");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Queue a comment to be written. If the buffer is full, this waits for room
+   * for up to {@code maxEnqueueWait}.
+   *
+   * @param comment The comment. The comment ID is ignored. If the publish
+   *        timestamp is {@code null}, MySQL uses the time the batch is
+   *        written.
+   * @return A future that completes with the generated comment ID once the
+   *         comment has been committed, or completes exceptionally if it could
+   *         not be written.
+   * @throws DestinationException Thrown if the writer is closed or if the
+   *         buffer stays full for longer than {@code maxEnqueueWait}.
+   */
+  public CompletableFuture<Integer> submit(Comment comment) {
+    lock.lock();
+
+    try {
+      if(buffer.size() >= capacity) {
+        waitForRoom();
+      }
+
+      if(closed) {
+        throw new DestinationException("The comment writer is closed.");
+      }
+
+      PendingComment pending =
+          new PendingComment(comment, ++submittedSequence, System.nanoTime());
+
+      buffer.addLast(pending);
+      maxQueueDepth.accumulateAndGet(buffer.size(), Math::max);
+
+      /*
+       * The first comment starts the flush timer. A full batch is written
+       * right away.
+       */
+      if(buffer.size() == 1 || buffer.size() == batchSize) {
+        notEmpty.signal();
+      }
+
+      return pending.future;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Wait until the buffer has room. The caller holds the lock.
+   *
+   * @throws DestinationException Thrown if there is no room within
+   *         {@code maxEnqueueWait} or the thread is interrupted.
+   */
+  private void waitForRoom() {
+    long start = System.nanoTime();
+    long remaining = maxEnqueueWaitNanos;
+
+    backpressureWaits.increment();
+
+    /* There's no point waiting for the timer when the buffer is full. */
+    flushRequested = true;
+    notEmpty.signal();
+
+    try {
+      while (buffer.size() >= capacity && !closed) {
+        if(remaining <= 0) {
+          rejected.increment();
+
+          DestinationException e = new DestinationException(
+              "The comment buffer is full (" + capacity + " comments).");
+          ENQUEUE_WAIT.recordFailure(start, e);
+          throw e;
+        }
+
+        remaining = notFull.awaitNanos(remaining);
+      }
+
+      ENQUEUE_WAIT.recordSuccess(start, 0, 0);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      ENQUEUE_WAIT.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * Write everything that has been submitted so far and wait until it has
+   * been committed. Comments that fail are reported through their futures.
+   */
+  public void flush() {
+    lock.lock();
+
+    try {
+      long target = submittedSequence;
+
+      if(writtenSequence < target) {
+        flushRequested = true;
+        notEmpty.signal();
+
+        while (writtenSequence < target) {
+          written.await();
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DestinationException(e);
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stop taking comments, write the ones that are still buffered and stop the
+   * background thread.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+
+    try {
+      closed = true;
+      notEmpty.signal();
+      notFull.signalAll();
+    }
+    finally {
+      lock.unlock();
+    }
+
+    try {
+      flusher.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * The background thread. It writes batches until the writer is closed and
+   * the buffer is empty.
+   */
+  private void writeBatches() {
+    List<PendingComment> batch;
+
+    while ((batch = nextBatch()) != null) {
+      write(batch);
+
+      lock.lock();
+
+      try {
+        writtenSequence = batch.get(batch.size() - 1).sequence;
+        written.signalAll();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Wait until a batch is due and take it from the buffer.
+   *
+   * @return The batch, or {@code null} if the writer is closed and the buffer
+   *         is empty.
+   */
+  private List<PendingComment> nextBatch() {
+    lock.lock();
+
+    try {
+      while (true) {
+        if(buffer.isEmpty()) {
+          flushRequested = false;
+
+          if(closed) {
+            return null;
+          }
+
+          notEmpty.awaitUninterruptibly();
+          continue;
+        }
+
+        long waited = System.nanoTime() - buffer.peekFirst().submittedNanos;
+
+        if(buffer.size() >= batchSize || flushRequested || closed
+            || waited >= flushIntervalNanos) {
+          int size = Math.min(batchSize, buffer.size());
+          List<PendingComment> batch = new ArrayList<>(size);
+
+          for(int index = 0; index < size; index++) {
+            batch.add(buffer.pollFirst());
+          }
+
+          notFull.signalAll();
+          return batch;
+        }
+
+        try {
+          notEmpty.awaitNanos(flushIntervalNanos - waited);
+        }
+        catch (InterruptedException e) {
+          /* Nothing interrupts this thread. Check the buffer again. */
+        }
+      }
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Write a batch as one multi-row INSERT in one transaction. If the batch is
+   * rejected (a comment on a destination that was just deleted, for example),
+   * the transaction is rolled back and the comments are written one at a time
+   * so that one bad comment doesn't lose the others.
+   *
+   * @param batch The comments to write.
+   */
+  private void write(List<PendingComment> batch) {
+    long start = System.nanoTime();
+
+    try (Connection conn = DbConnection.getConnection()) {
+      conn.setAutoCommit(false);
+
+      String sql =
+          batch.size() == batchSize ? fullBatchSql : insertSql(batch.size());
+      Integer[] ids = new Integer[batch.size()];
+
+      try {
+        try (PreparedStatement stmt =
+            conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+          int parmNo = 1;
+
+          for(PendingComment pending : batch) {
+            parmNo = setParameters(stmt, parmNo, pending.comment);
+          }
+
+          stmt.executeUpdate();
+
+          /* MySQL returns one key per row, in row order. */
+          try (ResultSet keys = stmt.getGeneratedKeys()) {
+            for(int index = 0; index < ids.length && keys.next(); index++) {
+              ids[index] = keys.getInt(1);
+            }
+          }
+        }
+
+        conn.commit();
+      }
+      catch (SQLException e) {
+        conn.rollback();
+        FLUSH.recordFailure(start, e);
+        writeOneByOne(conn, batch);
+        return;
+      }
+
+      FLUSH.recordSuccess(start, 0, batch.size());
+      batchesWritten.increment();
+      commentsWritten.add(batch.size());
+
+      for(int index = 0; index < ids.length; index++) {
+        batch.get(index).future.complete(ids[index]);
+      }
+    }
+    catch (SQLException | RuntimeException e) {
+      FLUSH.recordFailure(start, e);
+      fail(batch, e);
+    }
+  }
+
+  /**
+   * Write each comment in its own transaction.
+   *
+   * @param conn The connection, with auto-commit off.
+   * @param batch The comments.
+   * @throws SQLException Thrown if a rollback fails.
+   */
+  private void writeOneByOne(Connection conn, List<PendingComment> batch)
+      throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(insertSql(1),
+        Statement.RETURN_GENERATED_KEYS)) {
+      for(PendingComment pending : batch) {
+        try {
+          setParameters(stmt, 1, pending.comment);
+          stmt.executeUpdate();
+
+          Integer id = null;
+
+          try (ResultSet keys = stmt.getGeneratedKeys()) {
+            if(keys.next()) {
+              id = keys.getInt(1);
+            }
+          }
+
+          conn.commit();
+          commentsWritten.increment();
+          pending.future.complete(id);
+        }
+        catch (SQLException e) {
+          conn.rollback();
+          commentsFailed.increment();
+          pending.future.completeExceptionally(new DestinationException(e));
+        }
+      }
+    }
+  }
+
+  /**
+   * Fail every comment in the batch that hasn't already completed.
+   *
+   * @param batch The comments.
+   * @param cause The reason.
+   */
+  private void fail(List<PendingComment> batch, Exception cause) {
+    for(PendingComment pending : batch) {
+      DestinationException error = new DestinationException(cause);
+
+      if(pending.future.completeExceptionally(error)) {
+        commentsFailed.increment();
+      }
+    }
+  }
+
+  /**
+   * Set the parameters for one row of the INSERT statement.
+   *
+   * @param stmt The statement.
+   * @param parmNo The first parameter number for the row.
+   * @param comment The comment.
+   * @return The first parameter number for the next row.
+   * @throws SQLException Thrown if a parameter can't be set.
+   */
+  private static int setParameters(PreparedStatement stmt, int parmNo,
+      Comment comment) throws SQLException {
+    stmt.setInt(parmNo++, comment.getMemberId());
+    stmt.setInt(parmNo++, comment.getDestinationId());
+    stmt.setString(parmNo++, comment.getComment());
+    stmt.setObject(parmNo++, comment.getPublishTimestamp());
+
+    return parmNo;
+  }
+
+  /**
+   * Build a multi-row INSERT statement.
+   *
+   * @param rows The number of rows.
+   * @return The SQL.
+   */
+  private static String insertSql(int rows) {
+    StringBuilder sql = new StringBuilder(
+        INSERT_PREFIX.length() + rows * (VALUES_ROW.length() + 2));
+
+    sql.append(INSERT_PREFIX).append(VALUES_ROW);
+
+    for(int row = 1; row < rows; row++) {
+      sql.append(", ").append(VALUES_ROW);
+    }
+
+    return sql.toString();
+  }
+
+  /**
+   * Return the number of comments waiting to be written.
+   *
+   * @return The queue depth.
+   */
+  public int getQueueDepth() {
+    lock.lock();
+
+    try {
+      return buffer.size();
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return a snapshot of the writer counters.
+   *
+   * @return The writer statistics.
+   */
+  public Stats getStats() {
+    return new Stats(this);
+  }
+
+  /**
+   * A comment waiting to be written, with the future its caller holds.
+   */
+  private static class PendingComment {
+    private final Comment comment;
+    private final long sequence;
+    private final long submittedNanos;
+    private final CompletableFuture<Integer> future =
+        new CompletableFuture<>();
+
+    private PendingComment(Comment comment, long sequence,
+        long submittedNanos) {
+      this.comment = comment;
+      this.sequence = sequence;
+      this.submittedNanos = submittedNanos;
+    }
+  }
+
+  /**
+   * A point-in-time snapshot of the writer counters. The flush latency is
+   * recorded in the "commentWriter.flush" operation metrics and the time
+   * callers spent blocked on a full buffer in "commentWriter.enqueueWait".
+   *
+   * @author Promineo
+   *
+   */
+  public static class Stats {
+    private final int capacity;
+    private final int queueDepth;
+    private final long maxQueueDepth;
+    private final long commentsWritten;
+    private final long commentsFailed;
+    private final long batchesWritten;
+    private final long backpressureWaits;
+    private final long rejected;
+
+    private Stats(CommentWriter writer) {
+      this.capacity = writer.capacity;
+      this.queueDepth = writer.getQueueDepth();
+      this.maxQueueDepth = writer.maxQueueDepth.get();
+      this.commentsWritten = writer.commentsWritten.sum();
+      this.commentsFailed = writer.commentsFailed.sum();
+      this.batchesWritten = writer.batchesWritten.sum();
+      this.backpressureWaits = writer.backpressureWaits.sum();
+      this.rejected = writer.rejected.sum();
+    }
+
+    public int getCapacity() {
+      return capacity;
+    }
+
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    public long getMaxQueueDepth() {
+      return maxQueueDepth;
+    }
+
+    public long getCommentsWritten() {
+      return commentsWritten;
+    }
+
+    public long getCommentsFailed() {
+      return commentsFailed;
+    }
+
+    public long getBatchesWritten() {
+      return batchesWritten;
+    }
+
+    public long getBackpressureWaits() {
+      return backpressureWaits;
+    }
+
+    public long getRejected() {
+      return rejected;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "CommentWriter [queued=%d/%d, maxQueued=%d, written=%d, failed=%d, "
+              + "batches=%d, backpressureWaits=%d, rejected=%d]",
+          queueDepth, capacity, maxQueueDepth, commentsWritten,
+          commentsFailed, batchesWritten, backpressureWaits, rejected);
+    }
+  }
+
+  /**
+   * Create a Builder so the writer can be configured.
+   *
+   * @return The Builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The Builder for the writer. Each setter returns the Builder so the calls
+   * can be chained together. The {@link #build()} method creates the writer.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Builder {
+    private int capacity = 10_000;
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(200);
+    private Duration maxEnqueueWait = Duration.ofSeconds(5);
+
+    /**
+     * Call this to create and return the writer.
+     *
+     * @return The comment writer.
+     */
+    public CommentWriter build() {
+      return new CommentWriter(this);
+    }
+
+    public Builder capacity(int capacity) {
+      this.capacity = capacity;
+      return this;
+    }
+
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    public Builder flushInterval(Duration flushInterval) {
+      this.flushInterval = flushInterval;
+      return this;
+    }
+
+    public Builder maxEnqueueWait(Duration maxEnqueueWait) {
+      this.maxEnqueueWait = maxEnqueueWait;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,611 @@
+package destination.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import destination.exception.DestinationException;
+
+/**
+ * A small, bounded pool of physical MySQL connections. Opening a connection
+ * with DriverManager means a TCP connect plus the MySQL authentication
+ * handshake, which is often more expensive than the query itself. The pool
+ * keeps physical connections open and hands out wrappers whose
+ * {@link Connection#close()} method returns the connection to the pool instead
+ * of closing it. That means the DAO code can keep using try-with-resources
+ * exactly as before.
+ * <p>
+ * The pool is created with the {@link Builder}:
+ *
+ * <pre>
+ * <code>
+ * ConnectionPool pool = ConnectionPool.builder()
+ *     .url(url)
+ *     .username(username)
+ *     .password(password)
+ *     .minSize(2)
+ *     .maxSize(10)
+ *     .maxWait(Duration.ofSeconds(5))
+ *     .idleTimeout(Duration.ofMinutes(5))
+ *     .build();
+ * </code>
+ * </pre>
+ *
+ * @author Promineo
+ *
+ */
+public class ConnectionPool implements AutoCloseable {
+  private final String url;
+  private final String username;
+  private final String password;
+  private final int minSize;
+  private final int maxSize;
+  private final long maxWaitNanos;
+  private final long idleTimeoutNanos;
+  private final int validationTimeoutSeconds;
+
+  /*
+   * One permit per connection that may be checked out. A caller that cannot
+   * get a permit within maxWait gets an exception instead of waiting forever.
+   */
+  private final Semaphore permits;
+
+  /*
+   * Idle connections. The most recently returned connection is at the head so
+   * it is reused first. The least recently used connections collect at the
+   * tail where the evictor can find them.
+   */
+  private final BlockingDeque<IdleConnection> idle =
+      new LinkedBlockingDeque<>();
+
+  private final ScheduledExecutorService evictor;
+  private volatile boolean closed;
+
+  /* Counters. These are read by getStats(). */
+  private final AtomicInteger active = new AtomicInteger();
+  private final LongAdder borrows = new LongAdder();
+  private final LongAdder borrowWaitNanos = new LongAdder();
+  private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+  private final LongAdder borrowTimeouts = new LongAdder();
+  private final LongAdder created = new LongAdder();
+  private final LongAdder destroyed = new LongAdder();
+  private final LongAdder validationFailures = new LongAdder();
+
+  /**
+   * This constructor is private and is called by the Builder. It opens
+   * {@code minSize} connections and starts the idle connection evictor.
+   *
+   * @param builder The builder holding the configuration.
+   * @throws DestinationException Thrown if the initial connections cannot be
+   *         opened.
+   */
+  private ConnectionPool(Builder builder) {
+    if(builder.minSize < 0 || builder.maxSize < 1
+        || builder.minSize > builder.maxSize) {
+      throw new DestinationException("Invalid pool size: min="
+          + builder.minSize + ", max=" + builder.maxSize);
+    }
+
+    this.url = builder.url;
+    this.username = builder.username;
+    this.password = builder.password;
+    this.minSize = builder.minSize;
+    this.maxSize = builder.maxSize;
+    this.maxWaitNanos = builder.maxWait.toNanos();
+    this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+    this.validationTimeoutSeconds = builder.validationTimeoutSeconds;
+    this.permits = new Semaphore(maxSize, true);
+
+    fillToMinimum();
+
+    this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "connection-pool-evictor");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    long period = Math.max(idleTimeoutNanos / 2, TimeUnit.SECONDS.toNanos(1));
+    evictor.scheduleWithFixedDelay(this::evictIdleConnections, period, period,
+        TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Borrow a connection from the pool. An idle connection is reused if there
+   * is one (after checking that it is still alive). Otherwise, a new physical
+   * connection is opened. Close the returned connection to give it back to the
+   * pool.
+   *
+   * @return The pooled connection.
+   * @throws DestinationException Thrown if a connection is not available
+   *         within the maximum wait time or if a new connection cannot be
+   *         opened.
+   */
+  public Connection getConnection() {
+    if(closed) {
+      throw new DestinationException("The connection pool is closed.");
+    }
+
+    long start = System.nanoTime();
+
+    try {
+      if(!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+        borrowTimeouts.increment();
+
+        throw new DestinationException("Timed out after "
+            + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)
+            + " ms waiting for a database connection. All " + maxSize
+            + " connections are in use.");
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DestinationException(e);
+    }
+
+    try {
+      Connection physical = takeIdleOrCreate();
+
+      recordBorrow(System.nanoTime() - start);
+      active.incrementAndGet();
+
+      return wrap(physical);
+    }
+    catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Take the most recently used idle connection that is still valid. If there
+   * isn't one, open a new connection.
+   *
+   * @return A physical connection.
+   */
+  private Connection takeIdleOrCreate() {
+    IdleConnection candidate;
+
+    while ((candidate = idle.pollFirst()) != null) {
+      if(isValid(candidate.connection)) {
+        return candidate.connection;
+      }
+
+      validationFailures.increment();
+      destroy(candidate.connection);
+    }
+
+    return open();
+  }
+
+  /**
+   * Check that a connection is still usable. For MySQL Connector/J this is a
+   * lightweight ping of the server.
+   *
+   * @param conn The connection to check.
+   * @return {@code true} if the connection can be used.
+   */
+  private boolean isValid(Connection conn) {
+    try {
+      return conn.isValid(validationTimeoutSeconds);
+    }
+    catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Open a new physical connection using DriverManager.
+   *
+   * @return The new connection.
+   * @throws DestinationException Thrown if the connection cannot be opened.
+   */
+  private Connection open() {
+    try {
+      Connection conn = DriverManager.getConnection(url, username, password);
+      created.increment();
+      return conn;
+    }
+    catch (SQLException e) {
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * Close a physical connection, ignoring any error.
+   *
+   * @param conn The connection to close.
+   */
+  private void destroy(Connection conn) {
+    destroyed.increment();
+
+    try {
+      conn.close();
+    }
+    catch (SQLException e) {
+      /* The connection is being thrown away so there's nothing to do. */
+    }
+  }
+
+  /**
+   * This is called when a caller closes a pooled connection. Any open
+   * transaction is rolled back so the next borrower gets a clean connection.
+   *
+   * @param physical The physical connection being returned.
+   */
+  private void release(Connection physical) {
+    active.decrementAndGet();
+
+    try {
+      if(closed || physical.isClosed() || idle.size() >= maxSize) {
+        destroy(physical);
+      }
+      else {
+        if(!physical.getAutoCommit()) {
+          physical.rollback();
+          physical.setAutoCommit(true);
+        }
+
+        idle.offerFirst(new IdleConnection(physical, System.nanoTime()));
+      }
+    }
+    catch (SQLException e) {
+      destroy(physical);
+    }
+    finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Close connections that have been idle for longer than the idle timeout,
+   * but never drop below the minimum pool size. Then top the pool back up to
+   * the minimum size if connections were lost.
+   */
+  private void evictIdleConnections() {
+    try {
+      long now = System.nanoTime();
+      IdleConnection oldest;
+
+      while (idle.size() > minSize && (oldest = idle.peekLast()) != null
+          && now - oldest.lastUsedNanos > idleTimeoutNanos) {
+        /* A borrower may have taken it in the meantime. */
+        if(idle.removeLastOccurrence(oldest)) {
+          destroy(oldest.connection);
+        }
+      }
+
+      fillToMinimum();
+    }
+    catch (RuntimeException e) {
+      /*
+       * Don't let an exception kill the evictor. The pool will try again on
+       * the next run.
+       */
+    }
+  }
+
+  /**
+   * Open connections until there are at least {@code minSize} of them. A
+   * permit is held while each one is opened so the pool never grows past
+   * {@code maxSize}.
+   */
+  private void fillToMinimum() {
+    while (!closed && active.get() + idle.size() < minSize
+        && permits.tryAcquire()) {
+      try {
+        idle.offerLast(new IdleConnection(open(), System.nanoTime()));
+      }
+      finally {
+        permits.release();
+      }
+    }
+  }
+
+  /**
+   * Record how long a caller waited to get a connection.
+   *
+   * @param waitNanos The wait time in nanoseconds.
+   */
+  private void recordBorrow(long waitNanos) {
+    borrows.increment();
+    borrowWaitNanos.add(waitNanos);
+    maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+  }
+
+  /**
+   * Wrap a physical connection in a proxy. All method calls are passed through
+   * to the physical connection except for {@code close()} and
+   * {@code isClosed()}.
+   *
+   * @param physical The physical connection.
+   * @return The proxy.
+   */
+  private Connection wrap(Connection physical) {
+    return (Connection) Proxy.newProxyInstance(
+        ConnectionPool.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        new PooledConnectionHandler(physical));
+  }
+
+  /**
+   * Return the maximum number of connections that can be checked out at once.
+   *
+   * @return The maximum pool size.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Return a snapshot of the pool counters.
+   *
+   * @return The pool statistics.
+   */
+  public Stats getStats() {
+    return new Stats(this);
+  }
+
+  /**
+   * Close all idle connections and stop the evictor. Connections that are
+   * checked out are closed when they are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    evictor.shutdownNow();
+
+    IdleConnection conn;
+
+    while ((conn = idle.pollFirst()) != null) {
+      destroy(conn.connection);
+    }
+  }
+
+  /**
+   * An idle physical connection and the time it was returned to the pool.
+   */
+  private static class IdleConnection {
+    private final Connection connection;
+    private final long lastUsedNanos;
+
+    private IdleConnection(Connection connection, long lastUsedNanos) {
+      this.connection = connection;
+      this.lastUsedNanos = lastUsedNanos;
+    }
+  }
+
+  /**
+   * This handles method calls on the Connection proxy. Once {@code close()} is
+   * called, the physical connection is returned to the pool and any further
+   * calls on the proxy fail.
+   */
+  private class PooledConnectionHandler implements InvocationHandler {
+    private Connection physical;
+
+    private PooledConnectionHandler(Connection physical) {
+      this.physical = physical;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args)
+        throws Throwable {
+      switch(method.getName()) {
+        case "close":
+          if(physical != null) {
+            Connection conn = physical;
+            physical = null;
+            release(conn);
+          }
+          return null;
+
+        case "isClosed":
+          return physical == null;
+
+        case "equals":
+          return proxy == args[0];
+
+        case "hashCode":
+          return System.identityHashCode(proxy);
+
+        case "toString":
+          return "PooledConnection[" + physical + "]";
+
+        default:
+          break;
+      }
+
+      if(physical == null) {
+        throw new SQLException("The connection has been returned to the pool.");
+      }
+
+      try {
+        return method.invoke(physical, args);
+      }
+      catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  /**
+   * A point-in-time snapshot of the pool counters.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Stats {
+    private final int maxSize;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final long borrows;
+    private final long borrowTimeouts;
+    private final long totalBorrowWaitNanos;
+    private final long maxBorrowWaitNanos;
+    private final long connectionsCreated;
+    private final long connectionsDestroyed;
+    private final long validationFailures;
+
+    private Stats(ConnectionPool pool) {
+      this.maxSize = pool.maxSize;
+      this.activeConnections = pool.active.get();
+      this.idleConnections = pool.idle.size();
+      this.borrows = pool.borrows.sum();
+      this.borrowTimeouts = pool.borrowTimeouts.sum();
+      this.totalBorrowWaitNanos = pool.borrowWaitNanos.sum();
+      this.maxBorrowWaitNanos = pool.maxBorrowWaitNanos.get();
+      this.connectionsCreated = pool.created.sum();
+      this.connectionsDestroyed = pool.destroyed.sum();
+      this.validationFailures = pool.validationFailures.sum();
+    }
+
+    public int getMaxSize() {
+      return maxSize;
+    }
+
+    public int getActiveConnections() {
+      return activeConnections;
+    }
+
+    public int getIdleConnections() {
+      return idleConnections;
+    }
+
+    public long getBorrows() {
+      return borrows;
+    }
+
+    public long getBorrowTimeouts() {
+      return borrowTimeouts;
+    }
+
+    public long getTotalBorrowWaitNanos() {
+      return totalBorrowWaitNanos;
+    }
+
+    public long getMaxBorrowWaitNanos() {
+      return maxBorrowWaitNanos;
+    }
+
+    public long getConnectionsCreated() {
+      return connectionsCreated;
+    }
+
+    public long getConnectionsDestroyed() {
+      return connectionsDestroyed;
+    }
+
+    public long getValidationFailures() {
+      return validationFailures;
+    }
+
+    /**
+     * The average time a caller waited for a connection.
+     *
+     * @return The average wait in microseconds, or 0 if nothing was borrowed.
+     */
+    public double getAverageBorrowWaitMicros() {
+      return borrows == 0 ? 0 : totalBorrowWaitNanos / 1000.0 / borrows;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Pool [active=%d, idle=%d, max=%d, borrows=%d, timeouts=%d, "
+              + "avgWait=%.1fus, maxWait=%.1fus, created=%d, destroyed=%d, "
+              + "validationFailures=%d]",
+          activeConnections, idleConnections, maxSize, borrows,
+          borrowTimeouts, getAverageBorrowWaitMicros(),
+          maxBorrowWaitNanos / 1000.0, connectionsCreated,
+          connectionsDestroyed, validationFailures);
+    }
+  }
+
+  /**
+   * Create a Builder so the pool can be configured.
+   *
+   * @return The Builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The Builder for the pool. Each setter returns the Builder so the calls can
+   * be chained together. The {@link #build()} method creates the pool.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Builder {
+    private String url;
+    private String username;
+    private String password;
+    private int minSize = 1;
+    private int maxSize = 10;
+    private Duration maxWait = Duration.ofSeconds(5);
+    private Duration idleTimeout = Duration.ofMinutes(5);
+    private int validationTimeoutSeconds = 2;
+
+    /**
+     * Call this to create and return the pool.
+     *
+     * @return The connection pool.
+     */
+    public ConnectionPool build() {
+      return new ConnectionPool(this);
+    }
+
+    public Builder url(String url) {
+      this.url = url;
+      return this;
+    }
+
+    public Builder username(String username) {
+      this.username = username;
+      return this;
+    }
+
+    public Builder password(String password) {
+      this.password = password;
+      return this;
+    }
+
+    public Builder minSize(int minSize) {
+      this.minSize = minSize;
+      return this;
+    }
+
+    public Builder maxSize(int maxSize) {
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    public Builder maxWait(Duration maxWait) {
+      this.maxWait = maxWait;
+      return this;
+    }
+
+    public Builder idleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+      return this;
+    }
+
+    public Builder validationTimeoutSeconds(int validationTimeoutSeconds) {
+      this.validationTimeoutSeconds = validationTimeoutSeconds;
+      return this;
+    }
+  }
+}
@@ -1,14 +1,17 @@
 package destination.dao;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
+import java.time.Duration;
 import destination.exception.DestinationException;
+import destination.metrics.Metrics;
+import destination.metrics.OperationMetrics;
 
 /**
  * This class connects to the destinations schema in a MySQL database. See below
- * for valid credentials.
- * 
+ * for valid credentials. Connections come from a {@link ConnectionPool} so that
+ * each DAO call doesn't have to open a new physical connection. Closing the
+ * connection returns it to the pool.
+ *
  * @author Promineo
  *
  */
@@ -19,23 +22,121 @@ public class DbConnection {
   private static final String PASSWORD = "destinations";
   private static final String SCHEMA = "destinations";
 
+  /*
+   * rewriteBatchedStatements lets the driver send a batch of INSERTs as one
+   * multi-row INSERT statement. useCursorFetch makes a statement with a fetch
+   * size read its rows through a server-side cursor instead of pulling the
+   * whole result into memory. The prepared statement options keep up to 256
+   * server-side prepared statements open on each pooled connection, so a
+   * statement that is prepared again reuses the server's parsed plan.
+   */
+  private static final String DRIVER_OPTIONS =
+      "rewriteBatchedStatements=true&useCursorFetch=true"
+          + "&useServerPrepStmts=true&cachePrepStmts=true"
+          + "&prepStmtCacheSize=256&prepStmtCacheSqlLimit=2048";
+
+  private static final int MIN_POOL_SIZE = 2;
+  private static final int MAX_POOL_SIZE = 10;
+  private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+  private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+  private static final OperationMetrics CONNECTION_ACQUIRE =
+      Metrics.operation("connection.acquire");
+
+  private static volatile ConnectionPool pool;
+
   /**
-   * Ask DriverManager for a connection object.
-   * 
-   * @return The connection object.
+   * Borrow a connection from the pool. The pool is created the first time this
+   * is called.
+   *
+   * @return The connection object. Close it to return it to the pool.
    * @throws DestinationException Thrown if an error occurs obtaining the
    *         connection.
    */
   public static Connection getConnection() {
-    // jdbc:mysql://host:port/schema?username=blah&password=blah
-    String uri = String.format("jdbc:mysql://%s:%d/%s", HOST, PORT, SCHEMA);
+    long start = System.nanoTime();
 
     try {
-      Connection conn = DriverManager.getConnection(uri, USERNAME, PASSWORD);
+      Connection conn = getPool().getConnection();
+      CONNECTION_ACQUIRE.recordSuccess(start, 0, 0);
       return conn;
     }
-    catch (SQLException e) {
-      throw new DestinationException(e);
+    catch (RuntimeException e) {
+      CONNECTION_ACQUIRE.recordFailure(start, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Return the connection pool, creating it with the default settings if it
+   * hasn't been created yet.
+   *
+   * @return The connection pool.
+   */
+  public static ConnectionPool getPool() {
+    ConnectionPool current = pool;
+
+    if(current == null) {
+      synchronized(DbConnection.class) {
+        current = pool;
+
+        if(current == null) {
+          current = poolBuilder().build();
+          pool = current;
+        }
+      }
+    }
+
+    return current;
+  }
+
+  /**
+   * Return a pool Builder that is already set up with the URI, credentials and
+   * default pool settings. Change any of the settings and pass the Builder to
+   * {@link #configurePool(ConnectionPool.Builder)}.
+   *
+   * @return The pool Builder.
+   */
+  public static ConnectionPool.Builder poolBuilder() {
+    // jdbc:mysql://host:port/schema?username=blah&password=blah
+    String uri = String.format("jdbc:mysql://%s:%d/%s?%s", HOST, PORT, SCHEMA,
+        DRIVER_OPTIONS);
+
+    // @formatter:off
+    return ConnectionPool.builder()
+        .url(uri)
+        .username(USERNAME)
+        .password(PASSWORD)
+        .minSize(MIN_POOL_SIZE)
+        .maxSize(MAX_POOL_SIZE)
+        .maxWait(MAX_WAIT)
+        .idleTimeout(IDLE_TIMEOUT); // @formatter:on
+  }
+
+  /**
+   * Replace the connection pool with one built from the given Builder. The old
+   * pool (if any) is closed.
+   *
+   * @param builder The Builder with the new settings.
+   */
+  public static synchronized void configurePool(
+      ConnectionPool.Builder builder) {
+    ConnectionPool old = pool;
+    pool = builder.build();
+
+    if(old != null) {
+      old.close();
+    }
+  }
+
+  /**
+   * Close the connection pool. A new pool is created if
+   * {@link #getConnection()} is called again.
+   */
+  public static synchronized void closePool() {
+    if(pool != null) {
+      pool.close();
+      pool = null;
     }
   }
 }
@@ -1,15 +1,29 @@
 package destination.dao;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import destination.entity.Comment;
+import destination.entity.Destination;
 import destination.entity.Member;
 import destination.exception.DestinationException;
+import destination.metrics.Metrics;
+import destination.metrics.OperationMetrics;
 
 /**
  * This class actually talks to the MySQL database. For all the SQL operations,
@@ -22,6 +36,95 @@ import destination.exception.DestinationException;
  *
  */
 public class DestinationDao {
+  private static final String INSERT_MEMBER_SQL = "INSERT INTO members "
+      + "(first_name, last_name, email, phone_number, password) " + "VALUES "
+      + "(?, ?, ?, ?, ?)";
+
+  /*
+   * The columns that modifyMember can change, in parameter order. There are 31
+   * non-empty combinations of these, and the UPDATE statement for each one is
+   * built once here. The array index is the column bit mask.
+   */
+  private static final String[] MODIFIABLE_COLUMNS =
+      {"first_name", "last_name", "email", "phone_number", "password"};
+  private static final String[] MODIFY_SQL =
+      new String[1 << MODIFIABLE_COLUMNS.length];
+
+  /*
+   * The same for modifyDestination. The member who published a destination
+   * can't be changed.
+   */
+  private static final String[] MODIFIABLE_DESTINATION_COLUMNS = {"name",
+      "description", "geolocation", "time_to_traverse", "difficulty"};
+  private static final String[] MODIFY_DESTINATION_SQL =
+      new String[1 << MODIFIABLE_DESTINATION_COLUMNS.length];
+
+  static {
+    for(int columns = 1; columns < MODIFY_SQL.length; columns++) {
+      MODIFY_SQL[columns] = buildModifySql(columns);
+    }
+
+    for(int columns = 1; columns < MODIFY_DESTINATION_SQL.length; columns++) {
+      MODIFY_DESTINATION_SQL[columns] = buildUpdateSql("destinations",
+          MODIFIABLE_DESTINATION_COLUMNS, columns, "destination_id");
+    }
+  }
+
+  /*
+   * The metrics for each operation. These are looked up once so that recording
+   * a call does not allocate.
+   */
+  private static final OperationMetrics CREATE_TABLES =
+      Metrics.operation("dao.createTables");
+  private static final OperationMetrics CREATE_MEMBER =
+      Metrics.operation("dao.createMember");
+  private static final OperationMetrics CREATE_MEMBERS =
+      Metrics.operation("dao.createMembers");
+  private static final OperationMetrics FETCH_MEMBER_BY_ID =
+      Metrics.operation("dao.fetchMemberById");
+  private static final OperationMetrics FETCH_MEMBER_BY_EMAIL =
+      Metrics.operation("dao.fetchMemberByEmail");
+  private static final OperationMetrics FETCH_ALL_MEMBERS =
+      Metrics.operation("dao.fetchAllMembers");
+  private static final OperationMetrics STREAM_ALL_MEMBERS =
+      Metrics.operation("dao.streamAllMembers");
+  private static final OperationMetrics FETCH_MEMBER_PAGE =
+      Metrics.operation("dao.fetchMemberPage");
+  private static final OperationMetrics FETCH_DESTINATION_PAGE =
+      Metrics.operation("dao.fetchDestinationPage");
+  private static final OperationMetrics FETCH_NEWEST_DESTINATION_PAGE =
+      Metrics.operation("dao.fetchNewestDestinationPage");
+  private static final OperationMetrics FETCH_COMMENT_PAGE =
+      Metrics.operation("dao.fetchCommentPage");
+  private static final OperationMetrics FETCH_DESTINATION_COMMENT_PAGE =
+      Metrics.operation("dao.fetchDestinationCommentPage");
+  private static final OperationMetrics MODIFY_MEMBER =
+      Metrics.operation("dao.modifyMember");
+  private static final OperationMetrics DELETE_MEMBER =
+      Metrics.operation("dao.deleteMember");
+  private static final OperationMetrics DELETE_MEMBERS =
+      Metrics.operation("dao.deleteMembers");
+  private static final OperationMetrics CREATE_DESTINATION =
+      Metrics.operation("dao.createDestination");
+  private static final OperationMetrics FETCH_DESTINATION_BY_ID =
+      Metrics.operation("dao.fetchDestinationById");
+  private static final OperationMetrics FETCH_DESTINATIONS_BY_IDS =
+      Metrics.operation("dao.fetchDestinationsByIds");
+  private static final OperationMetrics STREAM_ALL_DESTINATIONS =
+      Metrics.operation("dao.streamAllDestinations");
+  private static final OperationMetrics MODIFY_DESTINATION =
+      Metrics.operation("dao.modifyDestination");
+  private static final OperationMetrics DELETE_DESTINATION =
+      Metrics.operation("dao.deleteDestination");
+
+  private final List<DestinationListener> destinationListeners =
+      new CopyOnWriteArrayList<>();
+
+  /* The kinds of page token, so a token can't be used with the wrong query. */
+  private static final String MEMBER_PAGE = "members";
+  private static final String DESTINATION_PAGE = "destinations";
+  private static final String NEWEST_DESTINATION_PAGE = "newest-destinations";
+  private static final String COMMENT_PAGE = "comments";
 
   /**
    * Execute several SQL statements as a batch.
@@ -29,6 +132,8 @@ public class DestinationDao {
    * @param batch The list of SQL statements to execute.
    */
   public void createTables(List<String> batch) {
+    long start = System.nanoTime();
+
     try (Connection conn = DbConnection.getConnection()) {
       try (Statement stmt = conn.createStatement()) {
         for(String sql : batch) {
@@ -37,8 +142,11 @@ public class DestinationDao {
 
         stmt.executeBatch();
       }
+
+      CREATE_TABLES.recordSuccess(start, 0, 0);
     }
     catch (SQLException e) {
+      CREATE_TABLES.recordFailure(start, e);
       throw new DestinationException(e);
     }
   }
@@ -51,27 +159,252 @@ public class DestinationDao {
    * @throws SQLException
    */
   public void createMember(Member member) throws SQLException {
-    String sql = "INSERT INTO members "
-        + "(first_name, last_name, email, phone_number, password) " + "VALUES "
-        + "(?, ?, ?, ?, ?)";
+    long start = System.nanoTime();
 
     try (Connection conn = DbConnection.getConnection()) {
-      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-        /*
-         * In the code below, the parameters must not be null. To handle a null,
-         * you need to do something like the commented out code.
-         */
-        // stmt.setNull(1, java.sql.Types.VARCHAR);
+      try (PreparedStatement stmt = conn.prepareStatement(INSERT_MEMBER_SQL)) {
+        setInsertParameters(stmt, member);
+        CREATE_MEMBER.recordSuccess(start, 0, stmt.executeUpdate());
+      }
+    }
+    catch (SQLException | RuntimeException e) {
+      CREATE_MEMBER.recordFailure(start, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Create member rows in batches. The members are sent to MySQL
+   * {@code batchSize} rows at a time. Each batch is a JDBC batch (which the
+   * driver rewrites as a multi-row INSERT) and is committed in its own
+   * transaction. If a batch fails (for example, because one of the email
+   * addresses is already taken), the batch is rolled back and its rows are
+   * inserted one at a time so that only the bad rows are rejected.
+   * <p>
+   * Batches that were committed before an unexpected error stay committed.
+   * 
+   * @param members The members to create. The member ID is ignored.
+   * @param batchSize The number of rows to send in each batch.
+   * @return The generated member IDs and any rows that could not be inserted.
+   * @throws DestinationException Thrown if a database error occurs that is
+   *         not specific to a row.
+   */
+  public BulkInsertResult createMembers(Iterable<Member> members,
+      int batchSize) {
+    if(batchSize < 1) {
+      throw new DestinationException(
+          "Batch size must be at least 1 but was " + batchSize + ".");
+    }
 
-        stmt.setString(1, member.getFirstName());
-        stmt.setString(2, member.getLastName());
-        stmt.setString(3, member.getEmail());
-        stmt.setString(4, member.getPhoneNumber());
-        stmt.setString(5, member.getPassword());
+    long start = System.nanoTime();
+    BulkInsertResult result = new BulkInsertResult();
+    List<Member> batch = new ArrayList<>(batchSize);
 
+    try (Connection conn = DbConnection.getConnection()) {
+      conn.setAutoCommit(false);
+
+      try (PreparedStatement stmt = conn.prepareStatement(INSERT_MEMBER_SQL,
+          Statement.RETURN_GENERATED_KEYS)) {
+
+        for(Member member : members) {
+          batch.add(member);
+
+          if(batch.size() == batchSize) {
+            insertBatch(conn, stmt, batch, result);
+            batch.clear();
+          }
+        }
+
+        if(!batch.isEmpty()) {
+          insertBatch(conn, stmt, batch, result);
+        }
+      }
+    }
+    catch (SQLException e) {
+      CREATE_MEMBERS.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+    catch (RuntimeException e) {
+      CREATE_MEMBERS.recordFailure(start, e);
+      throw e;
+    }
+
+    CREATE_MEMBERS.recordSuccess(start, 0, result.getInsertedCount());
+    return result;
+  }
+
+  /**
+   * Insert one batch of members in a single transaction. If the batch fails,
+   * it is rolled back and retried a row at a time.
+   * 
+   * @param conn The connection, with auto-commit turned off.
+   * @param stmt The INSERT statement, which returns generated keys.
+   * @param batch The members in this batch.
+   * @param result The generated IDs and row failures are added to this.
+   * @throws SQLException Thrown if the transaction can't be committed or
+   *         rolled back.
+   */
+  private void insertBatch(Connection conn, PreparedStatement stmt,
+      List<Member> batch, BulkInsertResult result) throws SQLException {
+    int[] ids = new int[batch.size()];
+    int count = 0;
+
+    try {
+      for(Member member : batch) {
+        setInsertParameters(stmt, member);
+        stmt.addBatch();
+      }
+
+      stmt.executeBatch();
+
+      try (ResultSet keys = stmt.getGeneratedKeys()) {
+        while (keys.next() && count < ids.length) {
+          ids[count++] = keys.getInt(1);
+        }
+      }
+    }
+    catch (BatchUpdateException e) {
+      stmt.clearBatch();
+      conn.rollback();
+      insertOneByOne(conn, stmt, batch, result);
+      return;
+    }
+
+    conn.commit();
+
+    for(int index = 0; index < count; index++) {
+      result.addInserted(ids[index]);
+    }
+  }
+
+  /**
+   * Insert the members one row at a time in a single transaction. A row that
+   * fails is recorded in the result and the other rows are still inserted.
+   * MySQL only rolls back the failed statement, not the transaction.
+   * 
+   * @param conn The connection, with auto-commit turned off.
+   * @param stmt The INSERT statement, which returns generated keys.
+   * @param batch The members to insert.
+   * @param result The generated IDs and row failures are added to this.
+   * @throws SQLException Thrown if the transaction can't be committed.
+   */
+  private void insertOneByOne(Connection conn, PreparedStatement stmt,
+      List<Member> batch, BulkInsertResult result) throws SQLException {
+    Integer[] ids = new Integer[batch.size()];
+    SQLException[] errors = new SQLException[batch.size()];
+
+    for(int index = 0; index < batch.size(); index++) {
+      try {
+        setInsertParameters(stmt, batch.get(index));
         stmt.executeUpdate();
+
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+          if(keys.next()) {
+            ids[index] = keys.getInt(1);
+          }
+        }
+      }
+      catch (SQLException e) {
+        errors[index] = e;
+      }
+    }
+
+    conn.commit();
+
+    for(int index = 0; index < batch.size(); index++) {
+      if(Objects.isNull(errors[index])) {
+        result.addInserted(ids[index]);
+      }
+      else {
+        result.addFailure(batch.get(index), errors[index]);
+      }
+    }
+  }
+
+  /**
+   * Set the INSERT parameters from the member.
+   * 
+   * @param stmt The statement created from {@link #INSERT_MEMBER_SQL}.
+   * @param member The member.
+   * @throws SQLException Thrown if a parameter can't be set.
+   */
+  private void setInsertParameters(PreparedStatement stmt, Member member)
+      throws SQLException {
+    /*
+     * In the code below, the parameters must not be null. To handle a null, you
+     * need to do something like the commented out code.
+     */
+    // stmt.setNull(1, java.sql.Types.VARCHAR);
+
+    stmt.setString(1, member.getFirstName());
+    stmt.setString(2, member.getLastName());
+    stmt.setString(3, member.getEmail());
+    stmt.setString(4, member.getPhoneNumber());
+    stmt.setString(5, member.getPassword());
+  }
+
+  /**
+   * Return the member with the given ID.
+   * 
+   * @param memberId The member ID.
+   * @return The member, or an empty Optional if there is no such member.
+   */
+  public Optional<Member> fetchMemberById(int memberId) {
+    String sql = "SELECT * FROM members WHERE member_id = ?";
+
+    return fetchOptional(FETCH_MEMBER_BY_ID, sql, stmt -> {
+      stmt.setInt(1, memberId);
+      return 1;
+    }, this::mapMember);
+  }
+
+  /**
+   * Return the member with the given email address. This uses the unique
+   * index on email.
+   * 
+   * @param email The email address.
+   * @return The member, or an empty Optional if there is no such member.
+   */
+  public Optional<Member> fetchMemberByEmail(String email) {
+    String sql = "SELECT * FROM members WHERE email = ?";
+
+    return fetchOptional(FETCH_MEMBER_BY_EMAIL, sql, stmt -> {
+      stmt.setString(1, email);
+      return 1;
+    }, this::mapMember);
+  }
+
+  /**
+   * Run a query that returns at most one row.
+   * 
+   * @param <T> The row type.
+   * @param metrics The metrics for the calling operation.
+   * @param sql The query.
+   * @param binder Sets the query parameters.
+   * @param mapper Converts the row into an object.
+   * @return The object, or an empty Optional if there was no row.
+   */
+  private <T> Optional<T> fetchOptional(OperationMetrics metrics, String sql,
+      ParameterBinder binder, RowMapper<T> mapper) {
+    long start = System.nanoTime();
+
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        binder.bind(stmt);
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          Optional<T> row =
+              rs.next() ? Optional.of(mapper.mapRow(rs)) : Optional.empty();
+
+          metrics.recordSuccess(start, row.isPresent() ? 1 : 0, 0);
+          return row;
+        }
       }
     }
+    catch (SQLException e) {
+      metrics.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
   }
 
   /**
@@ -82,6 +415,7 @@ public class DestinationDao {
    */
   public List<Member> fetchAllMembers() throws SQLException {
     String sql = "SELECT * FROM members";
+    long start = System.nanoTime();
 
     try (Connection conn = DbConnection.getConnection()) {
       try (PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -89,101 +423,550 @@ public class DestinationDao {
           List<Member> members = new LinkedList<>();
 
           while (rs.next()) {
-            Member member = Member.builder()
-                .memberId(rs.getObject("member_id", Integer.class))
-                .firstName(rs.getString("first_name"))
-                .lastName(rs.getString("last_name"))
-                .email(rs.getString("email"))
-                .phoneNumber(rs.getString("phone_number"))
-                .password(rs.getString("password")).build();
-
-            members.add(member);
+            members.add(mapMember(rs));
           }
 
+          FETCH_ALL_MEMBERS.recordSuccess(start, members.size(), 0);
           return members;
         }
       }
     }
+    catch (SQLException | RuntimeException e) {
+      FETCH_ALL_MEMBERS.recordFailure(start, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns all member rows as a lazy stream. Unlike
+   * {@link #fetchAllMembers()}, the rows are not collected into a list. They
+   * are read from MySQL {@code fetchSize} rows at a time using a server-side
+   * cursor as the stream is consumed, so memory use stays constant no matter
+   * how big the table is.
+   * <p>
+   * The stream holds a pooled connection until it is closed. Always use it in
+   * a try-with-resources statement:
+   * 
+   * <pre>
+   * <code>
+   * try (Stream&lt;Member&gt; members = dao.streamAllMembers(1000)) {
+   *   members.forEach(System.out::println);
+   * }
+   * </code>
+   * </pre>
+   * 
+   * @param fetchSize The number of rows fetched from the server at a time.
+   * @return The stream of members.
+   * @throws DestinationException Thrown if the query fails.
+   */
+  public Stream<Member> streamAllMembers(int fetchSize) {
+    return streamQuery(STREAM_ALL_MEMBERS, "SELECT * FROM members", fetchSize,
+        this::mapMember);
+  }
+
+  /**
+   * Run a query and return its rows as a lazy stream that reads
+   * {@code fetchSize} rows per round trip through a server-side cursor. The
+   * stream must be closed to release the connection.
+   * 
+   * @param <T> The row type.
+   * @param metrics The metrics for the calling operation. The time recorded is
+   *        the time to open the stream; the rows are counted as they are read.
+   * @param sql The query.
+   * @param fetchSize The number of rows fetched from the server at a time.
+   * @param mapper Converts a row into an object.
+   * @return The stream.
+   */
+  private <T> Stream<T> streamQuery(OperationMetrics metrics, String sql,
+      int fetchSize, RowMapper<T> mapper) {
+    long start = System.nanoTime();
+    Connection conn = DbConnection.getConnection();
+    PreparedStatement stmt = null;
+
+    try {
+      stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY);
+      stmt.setFetchSize(fetchSize);
+    }
+    catch (SQLException e) {
+      ResultSetStream.closeAll(null, stmt, conn);
+      metrics.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+
+    try {
+      Stream<T> rows = ResultSetStream.of(conn, stmt, rs -> {
+        metrics.addRowsRead(1);
+        return mapper.mapRow(rs);
+      });
+
+      metrics.recordSuccess(start, 0, 0);
+      return rows;
+    }
+    catch (RuntimeException e) {
+      metrics.recordFailure(start, e);
+      throw e;
+    }
+  }
+
+  /**
+   * Convert the current row of the ResultSet into a Member object.
+   * 
+   * @param rs The ResultSet, positioned on a member row.
+   * @return The member.
+   * @throws SQLException Thrown if a column can't be read.
+   */
+  private Member mapMember(ResultSet rs) throws SQLException {
+    // @formatter:off
+    return Member.builder()
+        .memberId(rs.getObject("member_id", Integer.class))
+        .firstName(rs.getString("first_name"))
+        .lastName(rs.getString("last_name"))
+        .email(rs.getString("email"))
+        .phoneNumber(rs.getString("phone_number"))
+        .password(rs.getString("password"))
+        .build(); // @formatter:on
+  }
+
+  /**
+   * Return the page of members that comes after the given member ID, in
+   * member ID order. This uses a seek predicate ({@code member_id > ?}) on the
+   * primary key instead of OFFSET, so a page deep into the table is as fast as
+   * the first page.
+   * 
+   * @param lastMemberId The ID of the last member on the previous page. Use 0
+   *        for the first page.
+   * @param pageSize The maximum number of members on the page.
+   * @return The page of members.
+   */
+  public Page<Member> fetchMembersAfter(int lastMemberId, int pageSize) {
+    String sql = "SELECT * FROM members WHERE member_id > ? "
+        + "ORDER BY member_id LIMIT ?";
+
+    return fetchPage(FETCH_MEMBER_PAGE, sql, stmt -> {
+      stmt.setInt(1, lastMemberId);
+      return 1;
+    }, pageSize, this::mapMember,
+        member -> PageToken.encode(MEMBER_PAGE, member.getMemberId()));
   }
 
   /**
-   * Modify a member row.
+   * Return the page of members that follows the given page token.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of members on the page.
+   * @return The page of members.
+   */
+  public Page<Member> fetchMemberPage(String pageToken, int pageSize) {
+    return fetchMembersAfter(PageToken.decodeId(MEMBER_PAGE, pageToken),
+        pageSize);
+  }
+
+  /**
+   * Return the page of destinations that comes after the given destination ID,
+   * in destination ID order.
+   * 
+   * @param lastDestinationId The ID of the last destination on the previous
+   *        page. Use 0 for the first page.
+   * @param pageSize The maximum number of destinations on the page.
+   * @return The page of destinations.
+   */
+  public Page<Destination> fetchDestinationsAfter(int lastDestinationId,
+      int pageSize) {
+    String sql = "SELECT * FROM destinations WHERE destination_id > ? "
+        + "ORDER BY destination_id LIMIT ?";
+
+    return fetchPage(FETCH_DESTINATION_PAGE, sql, stmt -> {
+      stmt.setInt(1, lastDestinationId);
+      return 1;
+    }, pageSize, this::mapDestination,
+        destination -> PageToken.encode(DESTINATION_PAGE,
+            destination.getDestinationId()));
+  }
+
+  /**
+   * Return the page of destinations (in destination ID order) that follows the
+   * given page token.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of destinations on the page.
+   * @return The page of destinations.
+   */
+  public Page<Destination> fetchDestinationPage(String pageToken,
+      int pageSize) {
+    return fetchDestinationsAfter(
+        PageToken.decodeId(DESTINATION_PAGE, pageToken), pageSize);
+  }
+
+  /**
+   * Return a page of destinations, newest first. The seek key is
+   * {@code (publish_timestamp, destination_id)}, which is served by the index
+   * on publish_timestamp (InnoDB secondary indexes include the primary key).
+   * The destination ID breaks ties between destinations published in the same
+   * second.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of destinations on the page.
+   * @return The page of destinations.
+   */
+  public Page<Destination> fetchNewestDestinationPage(String pageToken,
+      int pageSize) {
+    String[] keys = PageToken.decode(NEWEST_DESTINATION_PAGE, 2, pageToken);
+    String order =
+        " ORDER BY publish_timestamp DESC, destination_id DESC LIMIT ?";
+
+    if(Objects.isNull(keys)) {
+      return fetchPage(FETCH_NEWEST_DESTINATION_PAGE,
+          "SELECT * FROM destinations" + order, stmt -> 0, pageSize,
+          this::mapDestination, this::newestDestinationToken);
+    }
+
+    LocalDateTime lastPublished;
+    int lastDestinationId;
+
+    try {
+      lastPublished = LocalDateTime.parse(keys[0]);
+      lastDestinationId = Integer.parseInt(keys[1]);
+    }
+    catch (RuntimeException e) {
+      throw new DestinationException(
+          "'" + pageToken + "' is not a valid page token.");
+    }
+
+    String sql = "SELECT * FROM destinations WHERE publish_timestamp < ? "
+        + "OR (publish_timestamp = ? AND destination_id < ?)" + order;
+
+    return fetchPage(FETCH_NEWEST_DESTINATION_PAGE, sql, stmt -> {
+      stmt.setObject(1, lastPublished);
+      stmt.setObject(2, lastPublished);
+      stmt.setInt(3, lastDestinationId);
+      return 3;
+    }, pageSize, this::mapDestination, this::newestDestinationToken);
+  }
+
+  /**
+   * Create the page token for the newest-first destination query.
+   * 
+   * @param destination The last destination on the page.
+   * @return The token.
+   */
+  private String newestDestinationToken(Destination destination) {
+    return PageToken.encode(NEWEST_DESTINATION_PAGE,
+        destination.getPublishTimestamp(), destination.getDestinationId());
+  }
+
+  /**
+   * Return the page of comments that comes after the given comment ID, in
+   * comment ID order.
+   * 
+   * @param lastCommentId The ID of the last comment on the previous page. Use
+   *        0 for the first page.
+   * @param pageSize The maximum number of comments on the page.
+   * @return The page of comments.
+   */
+  public Page<Comment> fetchCommentsAfter(int lastCommentId, int pageSize) {
+    String sql = "SELECT * FROM comments WHERE comment_id > ? "
+        + "ORDER BY comment_id LIMIT ?";
+
+    return fetchPage(FETCH_COMMENT_PAGE, sql, stmt -> {
+      stmt.setInt(1, lastCommentId);
+      return 1;
+    }, pageSize, this::mapComment,
+        comment -> PageToken.encode(COMMENT_PAGE, comment.getCommentId()));
+  }
+
+  /**
+   * Return the page of comments (in comment ID order) that follows the given
+   * page token.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of comments on the page.
+   * @return The page of comments.
+   */
+  public Page<Comment> fetchCommentPage(String pageToken, int pageSize) {
+    return fetchCommentsAfter(PageToken.decodeId(COMMENT_PAGE, pageToken),
+        pageSize);
+  }
+
+  /**
+   * Return a page of the comments on one destination, in comment ID order. The
+   * seek uses the foreign key index on destination_id, which also holds the
+   * comment ID.
+   * 
+   * @param destinationId The destination ID.
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of comments on the page.
+   * @return The page of comments.
+   */
+  public Page<Comment> fetchDestinationCommentPage(int destinationId,
+      String pageToken, int pageSize) {
+    String kind = COMMENT_PAGE + ":" + destinationId;
+    int lastCommentId = PageToken.decodeId(kind, pageToken);
+    String sql = "SELECT * FROM comments "
+        + "WHERE destination_id = ? AND comment_id > ? "
+        + "ORDER BY comment_id LIMIT ?";
+
+    return fetchPage(FETCH_DESTINATION_COMMENT_PAGE, sql, stmt -> {
+      stmt.setInt(1, destinationId);
+      stmt.setInt(2, lastCommentId);
+      return 2;
+    }, pageSize, this::mapComment,
+        comment -> PageToken.encode(kind, comment.getCommentId()));
+  }
+
+  /**
+   * Run a keyset query and return one page. One row more than the page size is
+   * requested so we know whether there is a next page without another query.
+   * 
+   * @param <T> The row type.
+   * @param metrics The metrics for the calling operation.
+   * @param sql The query. The LIMIT parameter must be the last parameter.
+   * @param binder Sets the seek parameters and returns how many it set.
+   * @param pageSize The maximum number of rows on the page.
+   * @param mapper Converts a row into an object.
+   * @param tokenOf Creates the next page token from the last row on the page.
+   * @return The page.
+   */
+  private <T> Page<T> fetchPage(OperationMetrics metrics, String sql,
+      ParameterBinder binder, int pageSize, RowMapper<T> mapper,
+      Function<T, String> tokenOf) {
+    if(pageSize < 1) {
+      throw new DestinationException(
+          "Page size must be at least 1 but was " + pageSize + ".");
+    }
+
+    long start = System.nanoTime();
+
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        int parameterCount = binder.bind(stmt);
+        stmt.setInt(parameterCount + 1, pageSize + 1);
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          List<T> items = new ArrayList<>(pageSize);
+          boolean hasMore = false;
+
+          while (rs.next()) {
+            if(items.size() == pageSize) {
+              hasMore = true;
+              break;
+            }
+
+            items.add(mapper.mapRow(rs));
+          }
+
+          String nextPageToken =
+              hasMore ? tokenOf.apply(items.get(items.size() - 1)) : null;
+
+          metrics.recordSuccess(start, items.size(), 0);
+          return new Page<>(items, nextPageToken);
+        }
+      }
+    }
+    catch (SQLException e) {
+      metrics.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * Sets the parameters of a prepared statement.
+   */
+  @FunctionalInterface
+  private interface ParameterBinder {
+    /**
+     * Set the parameters.
+     * 
+     * @param stmt The statement.
+     * @return The number of parameters that were set.
+     * @throws SQLException Thrown if a parameter can't be set.
+     */
+    int bind(PreparedStatement stmt) throws SQLException;
+  }
+
+  /**
+   * Convert the current row of the ResultSet into a Destination object.
+   * 
+   * @param rs The ResultSet, positioned on a destination row.
+   * @return The destination.
+   * @throws SQLException Thrown if a column can't be read.
+   */
+  private Destination mapDestination(ResultSet rs) throws SQLException {
+    // @formatter:off
+    return Destination.builder()
+        .destinationId(rs.getObject("destination_id", Integer.class))
+        .memberId(rs.getObject("member_id", Integer.class))
+        .name(rs.getString("name"))
+        .description(rs.getString("description"))
+        .geolocation(rs.getString("geolocation"))
+        .timeToTraverse(rs.getObject("time_to_traverse", LocalTime.class))
+        .difficulty(rs.getObject("difficulty", Integer.class))
+        .publishTimestamp(rs.getObject("publish_timestamp", LocalDateTime.class))
+        .build(); // @formatter:on
+  }
+
+  /**
+   * Convert the current row of the ResultSet into a Comment object.
+   * 
+   * @param rs The ResultSet, positioned on a comment row.
+   * @return The comment.
+   * @throws SQLException Thrown if a column can't be read.
+   */
+  private Comment mapComment(ResultSet rs) throws SQLException {
+    // @formatter:off
+    return Comment.builder()
+        .commentId(rs.getObject("comment_id", Integer.class))
+        .memberId(rs.getObject("member_id", Integer.class))
+        .destinationId(rs.getObject("destination_id", Integer.class))
+        .comment(rs.getString("comment"))
+        .publishTimestamp(rs.getObject("publish_timestamp", LocalDateTime.class))
+        .build(); // @formatter:on
+  }
+
+  /**
+   * Modify a member row. Only the columns with a value in the member are
+   * changed. The UPDATE statement for each combination of columns was built
+   * once (see {@link #MODIFY_SQL}), so the SQL string is the same every time
+   * the same columns are changed and the driver's prepared statement cache can
+   * reuse the server-side statement.
    * 
    * @param member
    * @throws SQLException
+   * @throws DestinationException Thrown if none of the columns have a value.
    */
   public void modifyMember(Member member) throws SQLException {
-    Connection conn = DbConnection.getConnection();
-    List<String> params = new LinkedList<>();
-    String sql = buildModifySql(member, params);
+    int columns = modifiedColumns(member);
+
+    if(columns == 0) {
+      throw new DestinationException("Nothing to modify for member with ID="
+          + member.getMemberId() + ".");
+    }
+
+    String sql = MODIFY_SQL[columns];
 
     /* To see what the SQL looks like, uncomment the line below. */
     // System.out.println("Modify SQL: " + sql);
 
-    PreparedStatement stmt = conn.prepareStatement(sql);
+    long start = System.nanoTime();
 
     /*
-     * The parameters with modified data are in the params list. We also need to
-     * add the member ID, which is in the WHERE clause.
+     * The connection must be closed so that it is returned to the pool.
+     * Otherwise the pool runs out of connections. Closing the statement returns
+     * it to the driver's statement cache.
      */
-    for(int parmNo = 1; parmNo <= params.size(); parmNo++) {
-      stmt.setString(parmNo, params.get(parmNo - 1));
-    }
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        /*
+         * The parameters are bound in the same column order that was used to
+         * build the SQL. We also need to add the member ID, which is in the
+         * WHERE clause.
+         */
+        int parmNo = 1;
 
-    stmt.setInt(params.size() + 1, member.getMemberId());
-    stmt.executeUpdate();
+        for(int column = 0; column < MODIFIABLE_COLUMNS.length; column++) {
+          if((columns & (1 << column)) != 0) {
+            stmt.setString(parmNo++, modifiableValue(member, column));
+          }
+        }
+
+        stmt.setInt(parmNo, member.getMemberId());
+        MODIFY_MEMBER.recordSuccess(start, 0, stmt.executeUpdate());
+      }
+    }
+    catch (SQLException | RuntimeException e) {
+      MODIFY_MEMBER.recordFailure(start, e);
+      throw e;
+    }
   }
 
   /**
-   * Build the SQL for the modify operation.
+   * Return a bit mask of the columns that have a value in the member. Bit n is
+   * set if column n of {@link #MODIFIABLE_COLUMNS} is not null or blank.
    * 
-   * @param member The member
-   * @param params The parameter array, which takes the non-null values.
-   * @return The parameter values in the params list. Returns the SQL as the
-   *         method return value.
+   * @param member The member.
+   * @return The column bit mask. This is 0 if there's nothing to modify.
    */
-  private String buildModifySql(Member member, List<String> params) {
-    StringBuilder sql = new StringBuilder();
+  public static int modifiedColumns(Member member) {
+    int columns = 0;
 
-    /*
-     * This creates a String like: "first_name = ?, last_name = ?". If a value
-     * is null it is not included. If all values are null, MySQL will throw an
-     * invalid SQL exception.
-     */
-    addIfNotNull(member.getFirstName(), "first_name", params, sql);
-    addIfNotNull(member.getLastName(), "last_name", params, sql);
-    addIfNotNull(member.getEmail(), "email", params, sql);
-    addIfNotNull(member.getPhoneNumber(), "phone_number", params, sql);
-    addIfNotNull(member.getPassword(), "password", params, sql);
+    for(int column = 0; column < MODIFIABLE_COLUMNS.length; column++) {
+      String value = modifiableValue(member, column);
 
-    /* Add the UPDATE part of the SQL at the start of the String. */
-    sql.insert(0, "UPDATE members SET ");
+      if(Objects.nonNull(value) && !value.isBlank()) {
+        columns |= 1 << column;
+      }
+    }
 
-    /* Add the WHERE clause. */
-    sql.append(" WHERE member_id = ?");
+    return columns;
+  }
 
-    return sql.toString();
+  /**
+   * Return the value of a modifiable column from the member.
+   * 
+   * @param member The member.
+   * @param column The index of the column in {@link #MODIFIABLE_COLUMNS}.
+   * @return The value.
+   */
+  public static String modifiableValue(Member member, int column) {
+    switch(column) {
+      case 0:
+        return member.getFirstName();
+      case 1:
+        return member.getLastName();
+      case 2:
+        return member.getEmail();
+      case 3:
+        return member.getPhoneNumber();
+      case 4:
+        return member.getPassword();
+      default:
+        throw new IllegalArgumentException("No modifiable column " + column);
+    }
   }
 
   /**
-   * Add a value to the StringBuilder and to the List if the value is not null.
+   * Build the SQL for the modify operation.
    * 
-   * @param columnName The name of the column to add.
-   * @param value The value of the column.
-   * @param params The list onto which the value is added.
-   * @param sql The StringBuilder that is modified and returned.
+   * @param columns The bit mask of columns to set (see
+   *        {@link #modifiedColumns(Member)}).
+   * @return The SQL, like
+   *         "UPDATE members SET first_name = ?, email = ? WHERE member_id = ?".
    */
-  private void addIfNotNull(String value, String columnName,
-      List<String> params, StringBuilder sql) {
+  public static String buildModifySql(int columns) {
+    return buildUpdateSql("members", MODIFIABLE_COLUMNS, columns, "member_id");
+  }
 
-    if(Objects.nonNull(value) && !value.isBlank()) {
-      if(!sql.isEmpty()) {
-        sql.append(", ");
-      }
+  /**
+   * Build an UPDATE statement that sets the selected columns of one row.
+   * 
+   * @param table The table name.
+   * @param names The names of the columns that can be set.
+   * @param columns The bit mask of columns to set. Bit n selects names[n].
+   * @param idColumn The primary key column used in the WHERE clause.
+   * @return The SQL.
+   */
+  private static String buildUpdateSql(String table, String[] names,
+      int columns, String idColumn) {
+    StringBuilder sql = new StringBuilder("UPDATE ").append(table)
+        .append(" SET ");
+    String separator = "";
 
-      sql.append(columnName).append(" = ?");
-      params.add(value);
+    for(int column = 0; column < names.length; column++) {
+      if((columns & (1 << column)) != 0) {
+        sql.append(separator).append(names[column]).append(" = ?");
+        separator = ", ";
+      }
     }
+
+    /* Add the WHERE clause. */
+    sql.append(" WHERE ").append(idColumn).append(" = ?");
+
+    return sql.toString();
   }
 
   /**
@@ -194,15 +977,413 @@ public class DestinationDao {
    */
   public void deleteMember(Integer memberId) {
     String sql = "DELETE FROM members WHERE member_id = ?";
+    long start = System.nanoTime();
 
     try (Connection conn = DbConnection.getConnection()) {
       try (PreparedStatement stmt = conn.prepareStatement(sql)) {
         stmt.setInt(1, memberId);
+        DELETE_MEMBER.recordSuccess(start, 0, stmt.executeUpdate());
+      }
+    }
+    catch (SQLException e) {
+      DELETE_MEMBER.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * Delete many members along with everything that refers to them: their
+   * comments, their destinations and the comments on their destinations. The
+   * foreign keys from comments and destinations to members don't cascade, so
+   * the rows are deleted child first (comments, then destinations, then
+   * members).
+   * <p>
+   * The member IDs are handled in chunks of {@code chunkSize}. Each chunk is
+   * one short transaction with IN-list deletes, so locks are never held for
+   * long and a failure only rolls back the chunk that failed. Chunks that
+   * were committed before a failure stay deleted.
+   * 
+   * @param memberIds The IDs of the members to delete.
+   * @param chunkSize The number of members deleted per transaction.
+   * @param progress Called with the running totals after each chunk is
+   *        committed. May be {@code null}.
+   * @return The number of rows deleted from each table.
+   * @throws DestinationException Thrown if a chunk fails. The message says how
+   *         many members were deleted before the failure.
+   */
+  public BulkDeleteResult deleteMembers(int[] memberIds, int chunkSize,
+      Consumer<BulkDeleteResult> progress) {
+    if(chunkSize < 1) {
+      throw new DestinationException(
+          "Chunk size must be at least 1, not " + chunkSize);
+    }
+
+    long start = System.nanoTime();
+    BulkDeleteResult result = new BulkDeleteResult(memberIds.length);
+    String[] fullChunkSql = deleteMembersSql(chunkSize);
+
+    try (Connection conn = DbConnection.getConnection()) {
+      conn.setAutoCommit(false);
+
+      for(int from = 0; from < memberIds.length; from += chunkSize) {
+        int size = Math.min(chunkSize, memberIds.length - from);
+        String[] sql =
+            size == chunkSize ? fullChunkSql : deleteMembersSql(size);
+        List<Integer> destinationIds = new ArrayList<>();
+        long[] rows = new long[sql.length];
+
+        try {
+          try (PreparedStatement stmt = conn.prepareStatement(sql[0])) {
+            bindIds(stmt, memberIds, from, size);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+              while (rs.next()) {
+                destinationIds.add(rs.getInt(1));
+              }
+            }
+          }
+
+          for(int step = 1; step < sql.length; step++) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql[step])) {
+              bindIds(stmt, memberIds, from, size);
+              rows[step] = stmt.executeUpdate();
+            }
+          }
+
+          conn.commit();
+        }
+        catch (SQLException e) {
+          conn.rollback();
+          throw new DestinationException("Deleting members failed after "
+              + result.getMembersDeleted() + " were deleted: " + e.getMessage(),
+              e);
+        }
+
+        result.addChunk(size, rows[1] + rows[2], rows[3], rows[4]);
+
+        for(DestinationListener listener : destinationListeners) {
+          for(int destinationId : destinationIds) {
+            listener.destinationDeleted(destinationId);
+          }
+        }
+
+        if(Objects.nonNull(progress)) {
+          progress.accept(result);
+        }
+      }
+
+      DELETE_MEMBERS.recordSuccess(start, 0, result.getCommentsDeleted()
+          + result.getDestinationsDeleted() + result.getMembersDeleted());
+      return result;
+    }
+    catch (SQLException | RuntimeException e) {
+      DELETE_MEMBERS.recordFailure(start, e);
+      throw e instanceof DestinationException ? (DestinationException) e
+          : new DestinationException(e);
+    }
+  }
+
+  /**
+   * Build the statements for one chunk of {@link #deleteMembers}. Each one
+   * takes the chunk's member IDs as its parameters. The first locks and
+   * returns the members' destination IDs so the destination listeners can be
+   * told about them.
+   * 
+   * @param size The number of member IDs in the chunk.
+   * @return The statements, in the order they must run.
+   */
+  private static String[] deleteMembersSql(int size) {
+    String ids = "(" + "?, ".repeat(size - 1) + "?)";
+
+    // @formatter:off
+    return new String[] {
+        "SELECT destination_id FROM destinations WHERE member_id IN " + ids
+            + " FOR UPDATE",
+        "DELETE c FROM comments c JOIN destinations d"
+            + " ON c.destination_id = d.destination_id"
+            + " WHERE d.member_id IN " + ids,
+        "DELETE FROM comments WHERE member_id IN " + ids,
+        "DELETE FROM destinations WHERE member_id IN " + ids,
+        "DELETE FROM members WHERE member_id IN " + ids
+    }; // @formatter:on
+  }
+
+  /**
+   * Set one chunk of IDs as the statement parameters.
+   */
+  private static void bindIds(PreparedStatement stmt, int[] ids, int from,
+      int size) throws SQLException {
+    for(int index = 0; index < size; index++) {
+      stmt.setInt(index + 1, ids[from + index]);
+    }
+  }
+
+  /**
+   * Register a listener that is told about every destination this DAO
+   * creates, modifies or deletes.
+   * 
+   * @param listener The listener.
+   */
+  public void addDestinationListener(DestinationListener listener) {
+    destinationListeners.add(listener);
+  }
+
+  /**
+   * Create a destination row. If the publish timestamp is {@code null}, MySQL
+   * uses the current time.
+   * 
+   * @param destination The destination. The destination ID is ignored.
+   * @return The generated destination ID.
+   */
+  public int createDestination(Destination destination) {
+    String sql = "INSERT INTO destinations (member_id, name, description, "
+        + "geolocation, time_to_traverse, difficulty, publish_timestamp) "
+        + "VALUES (?, ?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))";
+    long start = System.nanoTime();
+    int destinationId;
+
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt =
+          conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        stmt.setInt(1, destination.getMemberId());
+        stmt.setString(2, destination.getName());
+        stmt.setString(3, destination.getDescription());
+        stmt.setString(4, destination.getGeolocation());
+        stmt.setObject(5, destination.getTimeToTraverse());
+        stmt.setObject(6, destination.getDifficulty());
+        stmt.setObject(7, destination.getPublishTimestamp());
         stmt.executeUpdate();
+
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+          keys.next();
+          destinationId = keys.getInt(1);
+        }
+      }
+
+      CREATE_DESTINATION.recordSuccess(start, 0, 1);
+    }
+    catch (SQLException e) {
+      CREATE_DESTINATION.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+
+    notifySaved(destinationId);
+    return destinationId;
+  }
+
+  /**
+   * Return the destination with the given ID.
+   * 
+   * @param destinationId The destination ID.
+   * @return The destination, or an empty Optional if there is no such
+   *         destination.
+   */
+  public Optional<Destination> fetchDestinationById(int destinationId) {
+    String sql = "SELECT * FROM destinations WHERE destination_id = ?";
+
+    return fetchOptional(FETCH_DESTINATION_BY_ID, sql, stmt -> {
+      stmt.setInt(1, destinationId);
+      return 1;
+    }, this::mapDestination);
+  }
+
+  /**
+   * Return the destinations with the given IDs using a single
+   * {@code WHERE destination_id IN (...)} query. IDs that don't exist are
+   * skipped. The destinations are returned in destination ID order.
+   * 
+   * @param destinationIds The destination IDs.
+   * @return The destinations.
+   */
+  public List<Destination> fetchDestinationsByIds(
+      Collection<Integer> destinationIds) {
+    if(destinationIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    String sql = "SELECT * FROM destinations WHERE destination_id IN ("
+        + "?, ".repeat(destinationIds.size() - 1)
+        + "?) ORDER BY destination_id";
+    long start = System.nanoTime();
+
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        int parmNo = 1;
+
+        for(Integer destinationId : destinationIds) {
+          stmt.setInt(parmNo++, destinationId);
+        }
+
+        try (ResultSet rs = stmt.executeQuery()) {
+          List<Destination> destinations =
+              new ArrayList<>(destinationIds.size());
+
+          while (rs.next()) {
+            destinations.add(mapDestination(rs));
+          }
+
+          FETCH_DESTINATIONS_BY_IDS.recordSuccess(start, destinations.size(),
+              0);
+          return destinations;
+        }
+      }
+    }
+    catch (SQLException e) {
+      FETCH_DESTINATIONS_BY_IDS.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * Return all destination rows as a lazy stream read through a server-side
+   * cursor. The stream must be closed (use try-with-resources).
+   * 
+   * @param fetchSize The number of rows fetched from the server at a time.
+   * @return The stream of destinations.
+   */
+  public Stream<Destination> streamAllDestinations(int fetchSize) {
+    return streamQuery(STREAM_ALL_DESTINATIONS, "SELECT * FROM destinations",
+        fetchSize, this::mapDestination);
+  }
+
+  /**
+   * Modify a destination row. Like {@link #modifyMember(Member)}, only the
+   * columns with a value are changed and the UPDATE statement for each
+   * combination of columns is built once.
+   * 
+   * @param destination The destination. The destination ID must be set.
+   * @return {@code true} if the destination exists.
+   * @throws DestinationException Thrown if none of the columns have a value.
+   */
+  public boolean modifyDestination(Destination destination) {
+    int columns = 0;
+
+    for(int column = 0; column < MODIFIABLE_DESTINATION_COLUMNS.length;
+        column++) {
+      if(Objects.nonNull(modifiableValue(destination, column))) {
+        columns |= 1 << column;
       }
     }
+
+    if(columns == 0) {
+      throw new DestinationException(
+          "Nothing to modify for destination with ID="
+              + destination.getDestinationId() + ".");
+    }
+
+    long start = System.nanoTime();
+    int rows;
+
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt =
+          conn.prepareStatement(MODIFY_DESTINATION_SQL[columns])) {
+        int parmNo = 1;
+
+        for(int column = 0; column < MODIFIABLE_DESTINATION_COLUMNS.length;
+            column++) {
+          if((columns & (1 << column)) != 0) {
+            stmt.setObject(parmNo++, modifiableValue(destination, column));
+          }
+        }
+
+        stmt.setInt(parmNo, destination.getDestinationId());
+        rows = stmt.executeUpdate();
+      }
+
+      MODIFY_DESTINATION.recordSuccess(start, 0, rows);
+    }
     catch (SQLException e) {
+      MODIFY_DESTINATION.recordFailure(start, e);
       throw new DestinationException(e);
     }
+
+    if(rows > 0) {
+      notifySaved(destination.getDestinationId());
+    }
+
+    return rows > 0;
+  }
+
+  /**
+   * Return the value of a modifiable destination column.
+   * 
+   * @param destination The destination.
+   * @param column The index of the column in
+   *        {@link #MODIFIABLE_DESTINATION_COLUMNS}.
+   * @return The value, or {@code null} if it isn't being changed. A blank
+   *         String counts as not changed.
+   */
+  private static Object modifiableValue(Destination destination, int column) {
+    switch(column) {
+      case 0:
+        return blankToNull(destination.getName());
+      case 1:
+        return blankToNull(destination.getDescription());
+      case 2:
+        return blankToNull(destination.getGeolocation());
+      case 3:
+        return destination.getTimeToTraverse();
+      case 4:
+        return destination.getDifficulty();
+      default:
+        throw new IllegalArgumentException("No modifiable column " + column);
+    }
+  }
+
+  private static String blankToNull(String value) {
+    return Objects.isNull(value) || value.isBlank() ? null : value;
+  }
+
+  /**
+   * Delete a destination row. MySQL also deletes its comments (ON DELETE
+   * CASCADE).
+   * 
+   * @param destinationId The destination ID.
+   * @return {@code true} if the destination existed.
+   */
+  public boolean deleteDestination(int destinationId) {
+    String sql = "DELETE FROM destinations WHERE destination_id = ?";
+    long start = System.nanoTime();
+    int rows;
+
+    try (Connection conn = DbConnection.getConnection()) {
+      try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        stmt.setInt(1, destinationId);
+        rows = stmt.executeUpdate();
+      }
+
+      DELETE_DESTINATION.recordSuccess(start, 0, rows);
+    }
+    catch (SQLException e) {
+      DELETE_DESTINATION.recordFailure(start, e);
+      throw new DestinationException(e);
+    }
+
+    if(rows > 0) {
+      for(DestinationListener listener : destinationListeners) {
+        listener.destinationDeleted(destinationId);
+      }
+    }
+
+    return rows > 0;
+  }
+
+  /**
+   * Tell the listeners that a destination was saved. The row is read back so
+   * the listeners see every column, including the ones a partial update left
+   * alone and the publish timestamp MySQL filled in.
+   * 
+   * @param destinationId The destination ID.
+   */
+  private void notifySaved(int destinationId) {
+    if(destinationListeners.isEmpty()) {
+      return;
+    }
+
+    fetchDestinationById(destinationId).ifPresent(destination -> {
+      for(DestinationListener listener : destinationListeners) {
+        listener.destinationSaved(destination);
+      }
+    });
   }
 }
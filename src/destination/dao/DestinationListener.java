@@ -0,0 +1,31 @@
+package destination.dao;
+
+import destination.entity.Destination;
+
+/**
+ * Gets told when {@link DestinationDao} changes a destination row. In-memory
+ * indexes register one of these with
+ * {@link DestinationDao#addDestinationListener(DestinationListener)} to stay in
+ * step with the table. The methods are called after the change has been
+ * committed, on the thread that made the change, so they should be quick.
+ *
+ * @author Promineo
+ *
+ */
+public interface DestinationListener {
+
+  /**
+   * Called after a destination is created or modified.
+   *
+   * @param destination The destination as it is now stored, including its ID.
+   */
+  default void destinationSaved(Destination destination) {}
+
+  /**
+   * Called after a destination is deleted. MySQL also deletes the comments on
+   * the destination (ON DELETE CASCADE).
+   *
+   * @param destinationId The ID of the deleted destination.
+   */
+  default void destinationDeleted(int destinationId) {}
+}
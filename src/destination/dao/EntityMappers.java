@@ -0,0 +1,65 @@
+package destination.dao;
+
+import static destination.dao.IndexedRowMapper.getInteger;
+import static destination.dao.IndexedRowMapper.getObject;
+import static destination.dao.IndexedRowMapper.getString;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import destination.entity.Comment;
+import destination.entity.Destination;
+import destination.entity.Member;
+
+/**
+ * The row mappers for the entities. Each method returns a new
+ * {@link IndexedRowMapper}, which resolves the column indexes once per
+ * ResultSet and calls the entity constructor directly instead of going
+ * through a Builder. Get a new mapper for each query.
+ *
+ * @author Promineo
+ *
+ */
+public class EntityMappers {
+
+  private EntityMappers() {}
+
+  public static IndexedRowMapper<Member> member() {
+    // @formatter:off
+    return IndexedRowMapper.of((rs, columns) -> new Member(
+        getInteger(rs, columns[0]),
+        getString(rs, columns[1]),
+        getString(rs, columns[2]),
+        getString(rs, columns[3]),
+        getString(rs, columns[4]),
+        getString(rs, columns[5])),
+        "member_id", "first_name", "last_name", "email", "phone_number",
+        "password"); // @formatter:on
+  }
+
+  public static IndexedRowMapper<Destination> destination() {
+    // @formatter:off
+    return IndexedRowMapper.of((rs, columns) -> new Destination(
+        getInteger(rs, columns[0]),
+        getInteger(rs, columns[1]),
+        getString(rs, columns[2]),
+        getString(rs, columns[3]),
+        getString(rs, columns[4]),
+        getObject(rs, columns[5], LocalTime.class),
+        getInteger(rs, columns[6]),
+        getObject(rs, columns[7], LocalDateTime.class)),
+        "destination_id", "member_id", "name", "description", "geolocation",
+        "time_to_traverse", "difficulty", "publish_timestamp");
+    // @formatter:on
+  }
+
+  public static IndexedRowMapper<Comment> comment() {
+    // @formatter:off
+    return IndexedRowMapper.of((rs, columns) -> new Comment(
+        getInteger(rs, columns[0]),
+        getInteger(rs, columns[1]),
+        getInteger(rs, columns[2]),
+        getString(rs, columns[3]),
+        getObject(rs, columns[4], LocalDateTime.class)),
+        "comment_id", "member_id", "destination_id", "comment",
+        "publish_timestamp"); // @formatter:on
+  }
+}
@@ -0,0 +1,152 @@
+package destination.dao;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link RowMapper} that reads columns by index instead of by label. Reading
+ * a column by label makes the driver look the label up for every column of
+ * every row. This mapper looks the labels up once, from the ResultSet
+ * metadata, the first time it sees a ResultSet, and then reads each row by
+ * index.
+ * <p>
+ * The mapper remembers the column indexes of the last ResultSet it saw, so
+ * create one per query (not one shared by all threads). The entity mappers in
+ * {@link EntityMappers} are created like this:
+ *
+ * <pre>
+ * <code>
+ * IndexedRowMapper.of((rs, columns) -&gt; new Member(
+ *     getInteger(rs, columns[0]), getString(rs, columns[1]), ...),
+ *     "member_id", "first_name", ...);
+ * </code>
+ * </pre>
+ *
+ * A label that isn't in the result gets index 0, and the get methods here
+ * return {@code null} for index 0. That lets one mapper serve queries that
+ * select only some of the columns.
+ *
+ * @author Promineo
+ *
+ * @param <T> The type of object created from each row.
+ */
+public final class IndexedRowMapper<T> implements RowMapper<T> {
+  private final String[] labels;
+  private final IndexedMapping<T> mapping;
+
+  private ResultSet resultSet;
+  private int[] columns;
+
+  private IndexedRowMapper(IndexedMapping<T> mapping, String[] labels) {
+    this.mapping = mapping;
+    this.labels = labels;
+  }
+
+  /**
+   * Create a mapper.
+   *
+   * @param <T> The type of object created from each row.
+   * @param mapping Creates the object from a row and the resolved column
+   *        indexes. {@code columns[n]} is the index of {@code labels[n]}.
+   * @param labels The column labels the mapping reads.
+   * @return The mapper.
+   */
+  public static <T> IndexedRowMapper<T> of(IndexedMapping<T> mapping,
+      String... labels) {
+    return new IndexedRowMapper<>(mapping, labels);
+  }
+
+  @Override
+  public T mapRow(ResultSet rs) throws SQLException {
+    if(rs != resultSet) {
+      columns = resolve(rs.getMetaData(), labels);
+      resultSet = rs;
+    }
+
+    return mapping.map(rs, columns);
+  }
+
+  /**
+   * Find the index of each label in the result.
+   *
+   * @param meta The ResultSet metadata.
+   * @param labels The column labels.
+   * @return The index of each label, or 0 if the label isn't in the result.
+   * @throws SQLException Thrown if the metadata can't be read.
+   */
+  static int[] resolve(ResultSetMetaData meta, String[] labels)
+      throws SQLException {
+    Map<String, Integer> indexes = new HashMap<>();
+
+    for(int column = meta.getColumnCount(); column >= 1; column--) {
+      indexes.put(meta.getColumnLabel(column).toLowerCase(), column);
+    }
+
+    int[] columns = new int[labels.length];
+
+    for(int index = 0; index < labels.length; index++) {
+      columns[index] = indexes.getOrDefault(labels[index].toLowerCase(), 0);
+    }
+
+    return columns;
+  }
+
+  /**
+   * Read an INT column without boxing through {@code getObject}.
+   *
+   * @param rs The ResultSet.
+   * @param column The column index, or 0 if the column wasn't selected.
+   * @return The value, or {@code null} if it is SQL NULL or wasn't selected.
+   * @throws SQLException Thrown if the column can't be read.
+   */
+  public static Integer getInteger(ResultSet rs, int column)
+      throws SQLException {
+    if(column == 0) {
+      return null;
+    }
+
+    int value = rs.getInt(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  /**
+   * Read a character column.
+   *
+   * @param rs The ResultSet.
+   * @param column The column index, or 0 if the column wasn't selected.
+   * @return The value, or {@code null}.
+   * @throws SQLException Thrown if the column can't be read.
+   */
+  public static String getString(ResultSet rs, int column)
+      throws SQLException {
+    return column == 0 ? null : rs.getString(column);
+  }
+
+  /**
+   * Read a column as the given type (a java.time class, for example).
+   *
+   * @param <V> The value type.
+   * @param rs The ResultSet.
+   * @param column The column index, or 0 if the column wasn't selected.
+   * @param type The value type.
+   * @return The value, or {@code null}.
+   * @throws SQLException Thrown if the column can't be read.
+   */
+  public static <V> V getObject(ResultSet rs, int column, Class<V> type)
+      throws SQLException {
+    return column == 0 ? null : rs.getObject(column, type);
+  }
+
+  /**
+   * Creates an object from the current row using column indexes.
+   *
+   * @param <T> The type of object created.
+   */
+  @FunctionalInterface
+  public interface IndexedMapping<T> {
+    T map(ResultSet rs, int[] columns) throws SQLException;
+  }
+}
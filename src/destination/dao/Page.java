@@ -0,0 +1,47 @@
+package destination.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of rows from a keyset (seek) query. To get the next page, pass
+ * {@link #getNextPageToken()} back to the method that returned this page. The
+ * token is opaque: callers should not try to read or build it.
+ *
+ * @author Promineo
+ *
+ * @param <T> The type of row on the page.
+ */
+public class Page<T> {
+  private final List<T> items;
+  private final String nextPageToken;
+
+  Page(List<T> items, String nextPageToken) {
+    this.items = Collections.unmodifiableList(items);
+    this.nextPageToken = nextPageToken;
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Return the token for the next page.
+   *
+   * @return The token, or {@code null} if this is the last page.
+   */
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public boolean hasNextPage() {
+    return Objects.nonNull(nextPageToken);
+  }
+
+  @Override
+  public String toString() {
+    return "Page [size=" + items.size() + ", hasNextPage=" + hasNextPage()
+        + "]";
+  }
+}
@@ -0,0 +1,100 @@
+package destination.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import destination.exception.DestinationException;
+
+/**
+ * Encodes and decodes the continuation tokens handed out with a {@link Page}.
+ * A token holds the kind of query it belongs to and the key values of the last
+ * row on the page. The values are Base64 encoded so callers treat the token as
+ * an opaque string.
+ *
+ * @author Promineo
+ *
+ */
+class PageToken {
+  private static final String SEPARATOR = "|";
+
+  private PageToken() {}
+
+  /**
+   * Create a token.
+   *
+   * @param kind The kind of query (e.g., "members").
+   * @param keys The key values of the last row on the page.
+   * @return The encoded token.
+   */
+  static String encode(String kind, Object... keys) {
+    StringBuilder token = new StringBuilder(kind);
+
+    for(Object key : keys) {
+      token.append(SEPARATOR).append(key);
+    }
+
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(token.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a token and return its key values.
+   *
+   * @param kind The kind of query the token must belong to.
+   * @param keyCount The number of key values the token must hold.
+   * @param token The token, or {@code null} for the first page.
+   * @return The key values, or {@code null} if the token is {@code null}.
+   * @throws DestinationException Thrown if the token is not valid for this
+   *         kind of query.
+   */
+  static String[] decode(String kind, int keyCount, String token) {
+    if(Objects.isNull(token)) {
+      return null;
+    }
+
+    String[] parts;
+
+    try {
+      parts = new String(Base64.getUrlDecoder().decode(token),
+          StandardCharsets.UTF_8).split("\\|", -1);
+    }
+    catch (IllegalArgumentException e) {
+      throw new DestinationException(
+          "'" + token + "' is not a valid page token.");
+    }
+
+    if(parts.length != keyCount + 1 || !parts[0].equals(kind)) {
+      throw new DestinationException(
+          "'" + token + "' is not a valid page token for " + kind + ".");
+    }
+
+    String[] keys = new String[keyCount];
+    System.arraycopy(parts, 1, keys, 0, keyCount);
+
+    return keys;
+  }
+
+  /**
+   * Decode a token that holds a single integer key.
+   *
+   * @param kind The kind of query the token must belong to.
+   * @param token The token, or {@code null} for the first page.
+   * @return The key, or 0 if the token is {@code null}. IDs start at 1, so 0 is
+   *         before the first row.
+   */
+  static int decodeId(String kind, String token) {
+    String[] keys = decode(kind, 1, token);
+
+    if(Objects.isNull(keys)) {
+      return 0;
+    }
+
+    try {
+      return Integer.parseInt(keys[0]);
+    }
+    catch (NumberFormatException e) {
+      throw new DestinationException(
+          "'" + token + "' is not a valid page token.");
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package destination.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import destination.exception.DestinationException;
+
+/**
+ * Turns an open query into a lazy {@link Stream}. Rows are read from the
+ * ResultSet only as the stream consumes them, so memory use does not depend on
+ * the number of rows. The ResultSet, statement and connection stay open until
+ * the stream is closed, so streams created here must be used in a
+ * try-with-resources statement.
+ *
+ * @author Promineo
+ *
+ */
+class ResultSetStream {
+
+  private ResultSetStream() {}
+
+  /**
+   * Execute the (already prepared) query and return a stream over the rows.
+   * The ResultSet, statement and connection are closed (in that order) when
+   * the stream is closed. If the query fails, they are closed before the
+   * exception is thrown.
+   *
+   * @param <T> The type of each element.
+   * @param conn The connection. This is closed with the stream.
+   * @param stmt The prepared query. This is closed with the stream.
+   * @param mapper Converts each row into an element.
+   * @return The stream.
+   * @throws DestinationException Thrown if the query fails.
+   */
+  static <T> Stream<T> of(Connection conn, PreparedStatement stmt,
+      RowMapper<T> mapper) {
+    ResultSet rs;
+
+    try {
+      rs = stmt.executeQuery();
+    }
+    catch (SQLException e) {
+      closeAll(null, stmt, conn);
+      throw new DestinationException(e);
+    }
+
+    Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+      @Override
+      public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+          if(!rs.next()) {
+            return false;
+          }
+
+          action.accept(mapper.mapRow(rs));
+          return true;
+        }
+        catch (SQLException e) {
+          throw new DestinationException(e);
+        }
+      }
+    };
+
+    return StreamSupport.stream(spliterator, false)
+        .onClose(() -> closeAll(rs, stmt, conn));
+  }
+
+  /**
+   * Close the ResultSet, statement and connection. The ResultSet and statement
+   * must be closed explicitly because closing a pooled connection only returns
+   * it to the pool.
+   *
+   * @param rs The ResultSet (may be {@code null}).
+   * @param stmt The statement.
+   * @param conn The connection.
+   */
+  static void closeAll(ResultSet rs, PreparedStatement stmt, Connection conn) {
+    try (conn; stmt; rs) {
+      /* try-with-resources closes them in reverse order. */
+    }
+    catch (SQLException e) {
+      throw new DestinationException(e);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package destination.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts the current row of a ResultSet into an object. The mapper must not
+ * call {@link ResultSet#next()}; the caller moves the cursor.
+ *
+ * @author Promineo
+ *
+ * @param <T> The type of object created from each row.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+  /**
+   * Map the current row.
+   *
+   * @param rs The ResultSet, positioned on a row.
+   * @return The object created from the row.
+   * @throws SQLException Thrown if a column can't be read.
+   */
+  T mapRow(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,422 @@
+package destination.dao;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import destination.exception.DestinationException;
+
+/**
+ * Splits a SQL script into statements in one pass, reading a character at a
+ * time so that a script of any size can be run without loading it into
+ * memory. Unlike splitting on every semicolon, this understands:
+ * <ul>
+ * <li>String literals and quoted identifiers ({@code '...'}, {@code "..."} and
+ * {@code `...`}), including doubled quotes and backslash escapes. A delimiter
+ * inside quotes doesn't end the statement.</li>
+ * <li>Comments ({@code -- }, {@code #} and {@code /* ... *&#47;}), which are
+ * dropped. MySQL executable comments ({@code /*! ... *&#47;}) are kept.</li>
+ * <li>The {@code DELIMITER} command used by the mysql client to define stored
+ * procedures and triggers. The command itself isn't returned.</li>
+ * </ul>
+ * Runs of whitespace outside quotes are collapsed to one space, the same as
+ * the old loader did, and empty statements are skipped.
+ *
+ * @author Promineo
+ *
+ */
+public class SqlScriptReader implements AutoCloseable {
+  private static final String DELIMITER_COMMAND = "DELIMITER";
+  private static final int MAX_DELIMITER_LENGTH = 16;
+
+  private final PushbackReader reader;
+  private String delimiter = ";";
+  private int line = 1;
+  private int statementLine;
+  private long charactersRead;
+
+  /**
+   * Create the script reader. The reader should be buffered.
+   *
+   * @param reader The script.
+   */
+  public SqlScriptReader(Reader reader) {
+    this.reader = new PushbackReader(reader, MAX_DELIMITER_LENGTH * 2);
+  }
+
+  /**
+   * Split a whole script into statements.
+   *
+   * @param reader The script.
+   * @return The statements.
+   */
+  public static List<String> readAll(Reader reader) {
+    List<String> statements = new ArrayList<>();
+
+    try (SqlScriptReader script = new SqlScriptReader(reader)) {
+      String sql;
+
+      while ((sql = script.next()) != null) {
+        statements.add(sql);
+      }
+    }
+
+    return statements;
+  }
+
+  /**
+   * Return the next statement, without its delimiter.
+   *
+   * @return The statement, or {@code null} at the end of the script.
+   * @throws DestinationException Thrown if the script can't be read or a
+   *         string or comment is never closed.
+   */
+  public String next() {
+    try {
+      return readStatement();
+    }
+    catch (IOException e) {
+      throw new DestinationException(e);
+    }
+  }
+
+  private String readStatement() throws IOException {
+    StringBuilder sql = new StringBuilder();
+    boolean pendingSpace = false;
+
+    while (true) {
+      int ch = read();
+
+      if(ch < 0) {
+        return sql.length() == 0 ? null : sql.toString();
+      }
+
+      if(sql.length() == 0) {
+        if(Character.isWhitespace(ch)) {
+          continue;
+        }
+
+        if(isDelimiterCommand(ch)) {
+          continue;
+        }
+      }
+
+      if(ch == '-' && isLineComment()) {
+        skipLine();
+        pendingSpace = sql.length() > 0;
+        continue;
+      }
+
+      if(ch == '#') {
+        skipLine();
+        pendingSpace = sql.length() > 0;
+        continue;
+      }
+
+      if(ch == '/' && peek() == '*') {
+        read();
+
+        if(peek() == '!') {
+          pendingSpace = appendSpace(sql, pendingSpace, '/');
+          sql.append("/*");
+          copyBlockComment(sql);
+        }
+        else {
+          copyBlockComment(null);
+          pendingSpace = sql.length() > 0;
+        }
+
+        continue;
+      }
+
+      if(Character.isWhitespace(ch)) {
+        pendingSpace = sql.length() > 0;
+        continue;
+      }
+
+      if(ch == delimiter.charAt(0) && matchRestOfDelimiter()) {
+        if(sql.length() > 0) {
+          return sql.toString();
+        }
+
+        pendingSpace = false;
+        continue;
+      }
+
+      pendingSpace = appendSpace(sql, pendingSpace, ch);
+
+      if(ch == '\'' || ch == '"' || ch == '`') {
+        copyQuoted(sql, ch);
+      }
+      else {
+        sql.append((char) ch);
+      }
+    }
+  }
+
+  /**
+   * Add a space held back from a run of whitespace, except after an opening
+   * parenthesis or before a closing one.
+   *
+   * @return {@code false}, so the caller can clear its flag.
+   */
+  private boolean appendSpace(StringBuilder sql, boolean pendingSpace,
+      int next) {
+    if(sql.length() == 0) {
+      statementLine = line;
+    }
+    else if(pendingSpace && sql.charAt(sql.length() - 1) != '('
+        && next != ')') {
+      sql.append(' ');
+    }
+
+    return false;
+  }
+
+  /**
+   * Check for a {@code DELIMITER} command at the start of a statement. If
+   * there is one, the new delimiter is read to the end of the line.
+   *
+   * @param first The first character, which has been read.
+   * @return {@code true} if it was a delimiter command.
+   */
+  private boolean isDelimiterCommand(int first) throws IOException {
+    if(Character.toUpperCase(first) != DELIMITER_COMMAND.charAt(0)) {
+      return false;
+    }
+
+    StringBuilder word = new StringBuilder().append((char) first);
+    int ch = 0;
+
+    while (word.length() <= DELIMITER_COMMAND.length()) {
+      ch = read();
+
+      if(ch < 0) {
+        break;
+      }
+
+      word.append((char) ch);
+
+      if(word.length() <= DELIMITER_COMMAND.length() && Character
+          .toUpperCase(ch) != DELIMITER_COMMAND.charAt(word.length() - 1)) {
+        break;
+      }
+    }
+
+    boolean matched = word.length() == DELIMITER_COMMAND.length() + 1
+        && (ch == ' ' || ch == '\t');
+
+    if(!matched) {
+      unread(word.substring(1));
+      return false;
+    }
+
+    int commandLine = line;
+    StringBuilder value = new StringBuilder();
+
+    while ((ch = read()) >= 0 && ch != '\n') {
+      value.append((char) ch);
+    }
+
+    String newDelimiter = value.toString().trim();
+
+    if(newDelimiter.isEmpty() || newDelimiter.length() > MAX_DELIMITER_LENGTH
+        || newDelimiter.chars().anyMatch(Character::isWhitespace)) {
+      throw new DestinationException(
+          "Invalid DELIMITER '" + newDelimiter + "' at line " + commandLine);
+    }
+
+    delimiter = newDelimiter;
+    return true;
+  }
+
+  /**
+   * Check whether the characters after the first match the rest of the
+   * delimiter. If not, they are pushed back.
+   */
+  private boolean matchRestOfDelimiter() throws IOException {
+    StringBuilder seen = new StringBuilder();
+
+    for(int index = 1; index < delimiter.length(); index++) {
+      int ch = read();
+
+      if(ch < 0) {
+        break;
+      }
+
+      seen.append((char) ch);
+
+      if(ch != delimiter.charAt(index)) {
+        break;
+      }
+    }
+
+    if(seen.length() == delimiter.length() - 1
+        && seen.toString().equals(delimiter.substring(1))) {
+      return true;
+    }
+
+    unread(seen.toString());
+    return false;
+  }
+
+  /**
+   * MySQL only treats {@code --} as a comment if it is followed by whitespace
+   * or the end of the script.
+   */
+  private boolean isLineComment() throws IOException {
+    if(peek() != '-') {
+      return false;
+    }
+
+    read();
+    int after = peek();
+
+    if(after < 0 || Character.isWhitespace(after)) {
+      return true;
+    }
+
+    unread("-");
+    return false;
+  }
+
+  private void skipLine() throws IOException {
+    int ch;
+
+    while ((ch = read()) >= 0 && ch != '\n') {
+      /* Skip the comment. */
+    }
+  }
+
+  /**
+   * Read to the end of a block comment. The opening characters have been
+   * read.
+   *
+   * @param sql Where to copy the comment, or {@code null} to drop it.
+   */
+  private void copyBlockComment(StringBuilder sql) throws IOException {
+    int start = line;
+    int previous = 0;
+    int ch;
+
+    while ((ch = read()) >= 0) {
+      if(sql != null) {
+        sql.append((char) ch);
+      }
+
+      if(previous == '*' && ch == '/') {
+        return;
+      }
+
+      previous = ch;
+    }
+
+    throw new DestinationException(
+        "Unterminated comment starting at line " + start);
+  }
+
+  /**
+   * Copy a quoted string or identifier, including the quotes.
+   *
+   * @param sql The statement being built.
+   * @param quote The opening quote, which has been read.
+   */
+  private void copyQuoted(StringBuilder sql, int quote) throws IOException {
+    int start = line;
+    int ch;
+
+    sql.append((char) quote);
+
+    while ((ch = read()) >= 0) {
+      sql.append((char) ch);
+
+      if(ch == '\\' && quote != '`') {
+        int escaped = read();
+
+        if(escaped < 0) {
+          break;
+        }
+
+        sql.append((char) escaped);
+      }
+      else if(ch == quote) {
+        if(peek() != quote) {
+          return;
+        }
+
+        sql.append((char) read());
+      }
+    }
+
+    throw new DestinationException("Unterminated " + (char) quote
+        + " quoted text starting at line " + start);
+  }
+
+  private int read() throws IOException {
+    int ch = reader.read();
+
+    if(ch >= 0) {
+      charactersRead++;
+
+      if(ch == '\n') {
+        line++;
+      }
+    }
+
+    return ch;
+  }
+
+  private int peek() throws IOException {
+    int ch = reader.read();
+
+    if(ch >= 0) {
+      reader.unread(ch);
+    }
+
+    return ch;
+  }
+
+  private void unread(String text) throws IOException {
+    for(int index = text.length() - 1; index >= 0; index--) {
+      char ch = text.charAt(index);
+
+      reader.unread(ch);
+      charactersRead--;
+
+      if(ch == '\n') {
+        line--;
+      }
+    }
+  }
+
+  /**
+   * Return the line number that the last statement returned by
+   * {@link #next()} starts on.
+   *
+   * @return The line number, starting at 1.
+   */
+  public int getStatementLine() {
+    return statementLine;
+  }
+
+  /**
+   * Return the number of characters read so far. This can be compared with
+   * the script size to show progress.
+   *
+   * @return The number of characters read.
+   */
+  public long getCharactersRead() {
+    return charactersRead;
+  }
+
+  @Override
+  public void close() {
+    try {
+      reader.close();
+    }
+    catch (IOException e) {
+      throw new DestinationException(e);
+    }
+  }
+}
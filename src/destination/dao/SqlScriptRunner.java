@@ -0,0 +1,366 @@
+package destination.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import destination.exception.DestinationException;
+import destination.metrics.Metrics;
+import destination.metrics.OperationMetrics;
+
+/**
+ * Runs a SQL script as it is read, so a large seed or migration script never
+ * has to fit in memory. Statements come from a {@link SqlScriptReader} and are
+ * sent to MySQL in chunks of {@code chunkSize}, each chunk as one JDBC batch
+ * like {@link DestinationDao#createTables(List)} does. With
+ * {@code transactional}, each chunk is committed on its own, so a failure
+ * rolls back only the chunk that failed. (MySQL commits DDL statements like
+ * CREATE TABLE straight away, so this only helps scripts that change data.)
+ * <p>
+ * With {@code timeEachStatement}, statements are sent one at a time instead of
+ * in a batch so that each one can be timed. That is slower, but shows which
+ * statements in a migration take the time.
+ *
+ * <pre>
+ * <code>
+ * SqlScriptRunner.Result result = SqlScriptRunner.builder()
+ *     .chunkSize(500)
+ *     .transactional(true)
+ *     .listener(listener)
+ *     .build()
+ *     .run(script);
+ * </code>
+ * </pre>
+ *
+ * @author Promineo
+ *
+ */
+public class SqlScriptRunner {
+  private static final int SLOWEST_KEPT = 10;
+
+  private static final OperationMetrics RUN_SCRIPT =
+      Metrics.operation("dao.runScript");
+  private static final OperationMetrics SCRIPT_STATEMENT =
+      Metrics.operation("dao.scriptStatement");
+
+  private final int chunkSize;
+  private final boolean transactional;
+  private final boolean timeEachStatement;
+  private final Listener listener;
+
+  /**
+   * This constructor is private and is called by the Builder.
+   *
+   * @param builder The builder holding the configuration.
+   */
+  private SqlScriptRunner(Builder builder) {
+    if(builder.chunkSize < 1) {
+      throw new DestinationException(
+          "Chunk size must be at least 1, not " + builder.chunkSize);
+    }
+
+    this.chunkSize = builder.chunkSize;
+    this.transactional = builder.transactional;
+    this.timeEachStatement = builder.timeEachStatement;
+    this.listener = Objects.isNull(builder.listener) ? new Listener() {}
+        : builder.listener;
+  }
+
+  /**
+   * Run every statement in the script. The script is not closed.
+   *
+   * @param script The script.
+   * @return The number of statements run, the time taken and the slowest
+   *         statements.
+   * @throws DestinationException Thrown if a statement fails. The message
+   *         gives the line the statement starts on.
+   */
+  public Result run(SqlScriptReader script) {
+    long start = System.nanoTime();
+    Result result = new Result();
+
+    try (Connection conn = DbConnection.getConnection()) {
+      conn.setAutoCommit(!transactional);
+
+      try (Statement stmt = conn.createStatement()) {
+        List<String> chunk = new ArrayList<>(chunkSize);
+        List<Integer> lines = new ArrayList<>(chunkSize);
+        String sql;
+
+        while ((sql = script.next()) != null) {
+          chunk.add(sql);
+          lines.add(script.getStatementLine());
+
+          if(chunk.size() == chunkSize) {
+            runChunk(conn, stmt, chunk, lines, result);
+            listener.progress(result.statements, script.getCharactersRead());
+          }
+        }
+
+        if(!chunk.isEmpty()) {
+          runChunk(conn, stmt, chunk, lines, result);
+          listener.progress(result.statements, script.getCharactersRead());
+        }
+      }
+
+      result.elapsedNanos = System.nanoTime() - start;
+      RUN_SCRIPT.recordSuccess(start, 0, result.rowsChanged);
+      return result;
+    }
+    catch (SQLException | RuntimeException e) {
+      RUN_SCRIPT.recordFailure(start, e);
+      throw e instanceof DestinationException ? (DestinationException) e
+          : new DestinationException(e);
+    }
+  }
+
+  /**
+   * Run one chunk of statements and commit it if the runner is
+   * transactional. The chunk lists are cleared.
+   */
+  private void runChunk(Connection conn, Statement stmt, List<String> chunk,
+      List<Integer> lines, Result result) throws SQLException {
+    int index = 0;
+
+    try {
+      if(timeEachStatement) {
+        for(; index < chunk.size(); index++) {
+          long start = System.nanoTime();
+
+          stmt.execute(chunk.get(index));
+          int rows = Math.max(stmt.getUpdateCount(), 0);
+          long nanos = System.nanoTime() - start;
+
+          SCRIPT_STATEMENT.recordSuccess(start, 0, rows);
+          result.rowsChanged += rows;
+          result.keepIfSlow(lines.get(index), chunk.get(index), nanos);
+          listener.statementExecuted(lines.get(index), chunk.get(index),
+              nanos);
+        }
+      }
+      else {
+        for(String sql : chunk) {
+          stmt.addBatch(sql);
+        }
+
+        for(int rows : stmt.executeBatch()) {
+          result.rowsChanged += Math.max(rows, 0);
+        }
+      }
+
+      if(transactional) {
+        conn.commit();
+      }
+    }
+    catch (SQLException e) {
+      if(transactional) {
+        conn.rollback();
+      }
+
+      stmt.clearBatch();
+
+      /*
+       * A failed batch doesn't say which statement failed, so the error
+       * points at the chunk.
+       */
+      int line = lines.get(timeEachStatement ? index : 0);
+
+      throw new DestinationException((timeEachStatement ? "Statement"
+          : "Chunk of " + chunk.size() + " statements") + " at line " + line
+          + " failed: " + e.getMessage(), e);
+    }
+
+    result.statements += chunk.size();
+    result.chunks++;
+    chunk.clear();
+    lines.clear();
+  }
+
+  /**
+   * Gets told how a script run is going. Both methods do nothing by default.
+   *
+   * @author Promineo
+   *
+   */
+  public interface Listener {
+
+    /**
+     * Called after each chunk is executed (and committed).
+     *
+     * @param statements The number of statements run so far.
+     * @param charactersRead The number of characters of the script read so
+     *        far.
+     */
+    default void progress(long statements, long charactersRead) {}
+
+    /**
+     * Called after each statement when statements are timed one at a time.
+     *
+     * @param line The line the statement starts on.
+     * @param sql The statement.
+     * @param nanos How long it took in nanoseconds.
+     */
+    default void statementExecuted(int line, String sql, long nanos) {}
+  }
+
+  /**
+   * The outcome of a script run.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Result {
+    private long statements;
+    private long chunks;
+    private long rowsChanged;
+    private long elapsedNanos;
+    private final List<TimedStatement> slowest = new ArrayList<>();
+
+    private Result() {}
+
+    /**
+     * Keep the statement if it is one of the slowest so far.
+     */
+    private void keepIfSlow(int line, String sql, long nanos) {
+      if(slowest.size() == SLOWEST_KEPT
+          && nanos <= slowest.get(SLOWEST_KEPT - 1).nanos) {
+        return;
+      }
+
+      if(slowest.size() == SLOWEST_KEPT) {
+        slowest.remove(SLOWEST_KEPT - 1);
+      }
+
+      int index = 0;
+
+      while (index < slowest.size() && slowest.get(index).nanos >= nanos) {
+        index++;
+      }
+
+      slowest.add(index, new TimedStatement(line, sql, nanos));
+    }
+
+    public long getStatements() {
+      return statements;
+    }
+
+    public long getChunks() {
+      return chunks;
+    }
+
+    public long getRowsChanged() {
+      return rowsChanged;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Return the slowest statements, slowest first. This is only filled in
+     * when statements are timed one at a time.
+     *
+     * @return Up to ten statements.
+     */
+    public List<TimedStatement> getSlowest() {
+      return slowest;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "Script [statements=%d, chunks=%d, rowsChanged=%d, elapsed=%.1fms]",
+          statements, chunks, rowsChanged, elapsedNanos / 1_000_000.0);
+    }
+  }
+
+  /**
+   * A statement and how long it took.
+   *
+   * @author Promineo
+   *
+   */
+  public static class TimedStatement {
+    private final int line;
+    private final String sql;
+    private final long nanos;
+
+    private TimedStatement(int line, String sql, long nanos) {
+      this.line = line;
+      this.sql = sql;
+      this.nanos = nanos;
+    }
+
+    public int getLine() {
+      return line;
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public long getNanos() {
+      return nanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("line %d: %.3fms: %s", line, nanos / 1_000_000.0,
+          sql.length() > 60 ? sql.substring(0, 60) + "..." : sql);
+    }
+  }
+
+  /**
+   * Create a Builder so the runner can be configured.
+   *
+   * @return The Builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * The Builder for the runner. Each setter returns the Builder so the calls
+   * can be chained together. The {@link #build()} method creates the runner.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Builder {
+    private int chunkSize = 100;
+    private boolean transactional;
+    private boolean timeEachStatement;
+    private Listener listener;
+
+    /**
+     * Call this to create and return the runner.
+     *
+     * @return The script runner.
+     */
+    public SqlScriptRunner build() {
+      return new SqlScriptRunner(this);
+    }
+
+    public Builder chunkSize(int chunkSize) {
+      this.chunkSize = chunkSize;
+      return this;
+    }
+
+    public Builder transactional(boolean transactional) {
+      this.transactional = transactional;
+      return this;
+    }
+
+    public Builder timeEachStatement(boolean timeEachStatement) {
+      this.timeEachStatement = timeEachStatement;
+      return this;
+    }
+
+    public Builder listener(Listener listener) {
+      this.listener = listener;
+      return this;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package destination.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * This holds the data for a comment row. Like {@link Member}, this is an
+ * immutable object that should be created using the {@link Builder}.
+ * 
+ * <pre>
+ * <code>
+ * Comment comment = Comment.builder()
+ *     .memberId(memberId)
+ *     .destinationId(destinationId)
+ *     .comment("Great view from the top!")
+ *     .build();
+ * </code>
+ * </pre>
+ * 
+ * @author Promineo
+ *
+ */
+public class Comment {
+  private Integer commentId;
+  private Integer memberId;
+  private Integer destinationId;
+  private String comment;
+  private LocalDateTime publishTimestamp;
+
+  /**
+   * This constructor is called by the Builder. Like the Member constructor,
+   * it is public for the DAO row mappers.
+   * 
+   * @param commentId The comment ID
+   * @param memberId The ID of the member who wrote the comment
+   * @param destinationId The ID of the destination being commented on
+   * @param comment The comment text
+   * @param publishTimestamp When the comment was published
+   */
+  public Comment(Integer commentId, Integer memberId, Integer destinationId,
+      String comment, LocalDateTime publishTimestamp) {
+    this.commentId = commentId;
+    this.memberId = memberId;
+    this.destinationId = destinationId;
+    this.comment = comment;
+    this.publishTimestamp = publishTimestamp;
+  }
+
+  public Integer getCommentId() {
+    return commentId;
+  }
+
+  public Integer getMemberId() {
+    return memberId;
+  }
+
+  public Integer getDestinationId() {
+    return destinationId;
+  }
+
+  public String getComment() {
+    return comment;
+  }
+
+  public LocalDateTime getPublishTimestamp() {
+    return publishTimestamp;
+  }
+
+  @Override
+  public String toString() {
+    return "Comment [commentId=" + commentId + ", memberId=" + memberId
+        + ", destinationId=" + destinationId + ", comment=" + comment
+        + ", publishTimestamp=" + publishTimestamp + "]";
+  }
+
+  /**
+   * Return a Builder so a Comment object can be created.
+   * 
+   * @return The Builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * This is the Builder inner class. All the setter methods are named the same
+   * as the class attributes and return the Builder so they can be chained.
+   * 
+   * @author Promineo
+   *
+   */
+  public static class Builder {
+    private Integer commentId;
+    private Integer memberId;
+    private Integer destinationId;
+    private String comment;
+    private LocalDateTime publishTimestamp;
+
+    /**
+     * Call this to create and return the Comment object.
+     * 
+     * @return The Comment object.
+     */
+    public Comment build() {
+      return new Comment(commentId, memberId, destinationId, comment,
+          publishTimestamp);
+    }
+
+    public Builder publishTimestamp(LocalDateTime publishTimestamp) {
+      this.publishTimestamp = publishTimestamp;
+      return this;
+    }
+
+    public Builder comment(String comment) {
+      this.comment = comment;
+      return this;
+    }
+
+    public Builder destinationId(Integer destinationId) {
+      this.destinationId = destinationId;
+      return this;
+    }
+
+    public Builder memberId(Integer memberId) {
+      this.memberId = memberId;
+      return this;
+    }
+
+    public Builder commentId(Integer commentId) {
+      this.commentId = commentId;
+      return this;
+    }
+  }
+}
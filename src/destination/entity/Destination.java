@@ -0,0 +1,178 @@
+package destination.entity;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * This holds the data for a destination row. Like {@link Member}, this is an
+ * immutable object that should be created using the {@link Builder}.
+ * 
+ * <pre>
+ * <code>
+ * Destination destination = Destination.builder()
+ *     .memberId(memberId)
+ *     .name(name)
+ *     .description(description)
+ *     .geolocation("45.5231,-122.6765")
+ *     .difficulty(3)
+ *     .build();
+ * </code>
+ * </pre>
+ * 
+ * @author Promineo
+ *
+ */
+public class Destination {
+  private Integer destinationId;
+  private Integer memberId;
+  private String name;
+  private String description;
+  private String geolocation;
+  private LocalTime timeToTraverse;
+  private Integer difficulty;
+  private LocalDateTime publishTimestamp;
+
+  /**
+   * This constructor is called by the Builder. Like the Member constructor,
+   * it is public for the DAO row mappers.
+   * 
+   * @param destinationId The destination ID
+   * @param memberId The ID of the member who published the destination
+   * @param name The destination name
+   * @param description The destination description
+   * @param geolocation The location as "latitude,longitude"
+   * @param timeToTraverse How long it takes to get through the destination
+   * @param difficulty The difficulty rating
+   * @param publishTimestamp When the destination was published
+   */
+  public Destination(Integer destinationId, Integer memberId, String name,
+      String description, String geolocation, LocalTime timeToTraverse,
+      Integer difficulty, LocalDateTime publishTimestamp) {
+    this.destinationId = destinationId;
+    this.memberId = memberId;
+    this.name = name;
+    this.description = description;
+    this.geolocation = geolocation;
+    this.timeToTraverse = timeToTraverse;
+    this.difficulty = difficulty;
+    this.publishTimestamp = publishTimestamp;
+  }
+
+  public Integer getDestinationId() {
+    return destinationId;
+  }
+
+  public Integer getMemberId() {
+    return memberId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public String getGeolocation() {
+    return geolocation;
+  }
+
+  public LocalTime getTimeToTraverse() {
+    return timeToTraverse;
+  }
+
+  public Integer getDifficulty() {
+    return difficulty;
+  }
+
+  public LocalDateTime getPublishTimestamp() {
+    return publishTimestamp;
+  }
+
+  @Override
+  public String toString() {
+    return "Destination [destinationId=" + destinationId + ", memberId="
+        + memberId + ", name=" + name + ", description=" + description
+        + ", geolocation=" + geolocation + ", timeToTraverse="
+        + timeToTraverse + ", difficulty=" + difficulty
+        + ", publishTimestamp=" + publishTimestamp + "]";
+  }
+
+  /**
+   * Return a Builder so a Destination object can be created.
+   * 
+   * @return The Builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * This is the Builder inner class. All the setter methods are named the same
+   * as the class attributes and return the Builder so they can be chained.
+   * 
+   * @author Promineo
+   *
+   */
+  public static class Builder {
+    private Integer destinationId;
+    private Integer memberId;
+    private String name;
+    private String description;
+    private String geolocation;
+    private LocalTime timeToTraverse;
+    private Integer difficulty;
+    private LocalDateTime publishTimestamp;
+
+    /**
+     * Call this to create and return the Destination object.
+     * 
+     * @return The Destination object.
+     */
+    public Destination build() {
+      return new Destination(destinationId, memberId, name, description,
+          geolocation, timeToTraverse, difficulty, publishTimestamp);
+    }
+
+    public Builder publishTimestamp(LocalDateTime publishTimestamp) {
+      this.publishTimestamp = publishTimestamp;
+      return this;
+    }
+
+    public Builder difficulty(Integer difficulty) {
+      this.difficulty = difficulty;
+      return this;
+    }
+
+    public Builder timeToTraverse(LocalTime timeToTraverse) {
+      this.timeToTraverse = timeToTraverse;
+      return this;
+    }
+
+    public Builder geolocation(String geolocation) {
+      this.geolocation = geolocation;
+      return this;
+    }
+
+    public Builder description(String description) {
+      this.description = description;
+      return this;
+    }
+
+    public Builder name(String name) {
+      this.name = name;
+      return this;
+    }
+
+    public Builder memberId(Integer memberId) {
+      this.memberId = memberId;
+      return this;
+    }
+
+    public Builder destinationId(Integer destinationId) {
+      this.destinationId = destinationId;
+      return this;
+    }
+  }
+}
@@ -5,7 +5,7 @@ import javax.annotation.processing.Generated;
 /**
  * This holds the data for a member row. This is an immutable object in that
  * once created, the data cannot be changed. There are Getters for each field
- * but no Setters. The object must be created using the {@link Builder}.
+ * but no Setters. The object should be created using the {@link Builder}.
  * <p>
  * This is used like follows. Note that you don't need to call all the setter
  * methods.
@@ -35,9 +35,10 @@ public class Member {
   private String password;
 
   /**
-   * This constructor is private and is called by the Builder (internal class).
-   * It was created by Eclipse (Source menu, "Generate constructor using
-   * fields...").
+   * This constructor is called by the Builder (internal class). It was
+   * created by Eclipse (Source menu, "Generate constructor using fields...").
+   * It is public so the DAO row mappers can create a Member from a row without
+   * creating a Builder for every row. Other code should use the Builder.
    * 
    * @param memberId The member ID
    * @param firstName The member first name
@@ -47,7 +48,7 @@ public class Member {
    * @param password The member password
    */
   @Generated(date = "2022-04-26T18:30", value = {"Eclipse"})
-  private Member(Integer memberId, String firstName, String lastName,
+  public Member(Integer memberId, String firstName, String lastName,
       String email, String phoneNumber, String password) {
     super();
     this.memberId = memberId;
@@ -18,4 +18,8 @@ public class DestinationException extends RuntimeException {
     super(cause);
   }
 
+  public DestinationException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
 }
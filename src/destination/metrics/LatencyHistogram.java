@@ -0,0 +1,135 @@
+package destination.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-bucket latency histogram in the style of HdrHistogram. Each power of
+ * two is split into eight equal buckets, so a recorded value is off by at most
+ * 12.5% when it is read back. The buckets are created once, so recording a
+ * value is a few bit operations and an atomic increment with no allocation.
+ * That keeps recording cheap enough to leave on all the time.
+ *
+ * @author Promineo
+ *
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong max = new AtomicLong();
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong total = new AtomicLong();
+
+  /**
+   * Record a value.
+   *
+   * @param value The value (normally nanoseconds). Negative values are
+   *        recorded as 0.
+   */
+  public void record(long value) {
+    long positive = Math.max(value, 0);
+
+    counts.incrementAndGet(bucketOf(positive));
+    count.incrementAndGet();
+    total.addAndGet(positive);
+
+    long current;
+
+    while (positive > (current = max.get())
+        && !max.compareAndSet(current, positive)) {
+      /* Another thread changed max. Try again. */
+    }
+  }
+
+  /**
+   * Return the bucket index for a value. Values below 8 get their own bucket.
+   * Above that, the bucket is chosen by the position of the highest set bit
+   * and the three bits below it.
+   *
+   * @param value The value (not negative).
+   * @return The bucket index.
+   */
+  static int bucketOf(long value) {
+    if(value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int highestBit = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket =
+        (int) (value >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+    return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Return the highest value that falls into a bucket.
+   *
+   * @param bucket The bucket index.
+   * @return The highest value in the bucket.
+   */
+  static long highestValueIn(int bucket) {
+    if(bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+    return lowest + (1L << shift) - 1;
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Return the mean of all recorded values.
+   *
+   * @return The mean, or 0 if nothing has been recorded.
+   */
+  public double getMean() {
+    long samples = count.get();
+    return samples == 0 ? 0 : (double) total.get() / samples;
+  }
+
+  /**
+   * Return the value at the given percentile. The answer is the top of the
+   * bucket holding that percentile, capped at the largest recorded value.
+   *
+   * @param percentile The percentile (e.g., 99.9).
+   * @return The value, or 0 if nothing has been recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long[] snapshot = new long[BUCKETS];
+    long samples = 0;
+
+    for(int bucket = 0; bucket < BUCKETS; bucket++) {
+      snapshot[bucket] = counts.get(bucket);
+      samples += snapshot[bucket];
+    }
+
+    if(samples == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * samples));
+    long seen = 0;
+
+    for(int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += snapshot[bucket];
+
+      if(seen >= rank) {
+        return Math.min(highestValueIn(bucket), max.get());
+      }
+    }
+
+    return max.get();
+  }
+}
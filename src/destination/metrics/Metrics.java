@@ -0,0 +1,110 @@
+package destination.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The registry of operation metrics. Operations are created on first use and
+ * registered with the platform MBean server. Metrics can be exported on demand
+ * or on a schedule through a {@link MetricsExporter}.
+ *
+ * @author Promineo
+ *
+ */
+public class Metrics {
+  private static final Map<String, OperationMetrics> OPERATIONS =
+      new ConcurrentSkipListMap<>();
+
+  private static ScheduledExecutorService exportScheduler;
+
+  private Metrics() {}
+
+  /**
+   * Return the metrics for the named operation, creating (and registering) them
+   * if needed. Call this once and keep the result in a static field so the
+   * lookup isn't done on every call.
+   *
+   * @param name The operation name, like "dao.createMember".
+   * @return The operation metrics.
+   */
+  public static OperationMetrics operation(String name) {
+    return OPERATIONS.computeIfAbsent(name, key -> {
+      OperationMetrics metrics = new OperationMetrics(key);
+      register(metrics);
+      return metrics;
+    });
+  }
+
+  /**
+   * Return the metrics for every operation, sorted by name.
+   *
+   * @return The operation metrics.
+   */
+  public static Collection<OperationMetrics> operations() {
+    return List.copyOf(OPERATIONS.values());
+  }
+
+  /**
+   * Export the current metrics.
+   *
+   * @param exporter Where to send the metrics.
+   */
+  public static void export(MetricsExporter exporter) {
+    exporter.export(operations());
+  }
+
+  /**
+   * Export the metrics every {@code period} on a background thread.
+   *
+   * @param exporter Where to send the metrics.
+   * @param period How often to export.
+   * @return The scheduled task. Cancel it to stop exporting.
+   */
+  public static synchronized ScheduledFuture<?> scheduleExport(
+      MetricsExporter exporter, Duration period) {
+    if(exportScheduler == null) {
+      exportScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-exporter");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    long nanos = period.toNanos();
+
+    return exportScheduler.scheduleAtFixedRate(() -> export(exporter), nanos,
+        nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Register the operation as an MXBean. If JMX isn't available, the metrics
+   * still work; they just can't be seen through JMX.
+   *
+   * @param metrics The operation metrics.
+   */
+  private static void register(OperationMetrics metrics) {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("destination:type=Operation,name="
+          + ObjectName.quote(metrics.getName()));
+
+      if(!server.isRegistered(name)) {
+        server.registerMBean(metrics, name);
+      }
+    }
+    catch (JMException | SecurityException e) {
+      /* JMX is optional. */
+    }
+  }
+}
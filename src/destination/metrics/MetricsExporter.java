@@ -0,0 +1,23 @@
+package destination.metrics;
+
+import java.util.Collection;
+
+/**
+ * Sends metrics somewhere: a log, a file, a monitoring system. Implement this
+ * to plug in a new destination and pass it to
+ * {@link Metrics#export(MetricsExporter)} or
+ * {@link Metrics#scheduleExport(MetricsExporter, java.time.Duration)}.
+ *
+ * @author Promineo
+ *
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+
+  /**
+   * Export the metrics.
+   *
+   * @param operations The metrics for every operation, sorted by name.
+   */
+  void export(Collection<OperationMetrics> operations);
+}
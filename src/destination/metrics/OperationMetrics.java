@@ -0,0 +1,183 @@
+package destination.metrics;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics for one operation (a DAO or service method, for example): a
+ * latency histogram, row counts and error counts by SQLState. Get an instance
+ * from {@link Metrics#operation(String)} once (in a static field) and use it
+ * like this:
+ *
+ * <pre>
+ * <code>
+ * long start = System.nanoTime();
+ *
+ * try {
+ *   int rows = stmt.executeUpdate();
+ *   CREATE_MEMBER.recordSuccess(start, 0, rows);
+ * }
+ * catch (SQLException e) {
+ *   CREATE_MEMBER.recordFailure(start, e);
+ *   throw e;
+ * }
+ * </code>
+ * </pre>
+ *
+ * Recording a success does not allocate. Recording a failure may allocate
+ * the first time a SQLState is seen.
+ *
+ * @author Promineo
+ *
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+  /* Used when an error has no SQLState (it isn't a SQLException). */
+  private static final String NO_SQL_STATE = "none";
+
+  private final String name;
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder rowsRead = new LongAdder();
+  private final LongAdder rowsWritten = new LongAdder();
+  private final Map<String, LongAdder> errorsBySqlState =
+      new ConcurrentHashMap<>();
+
+  OperationMetrics(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Record a call that succeeded.
+   *
+   * @param startNanos The value of {@link System#nanoTime()} when the call
+   *        started.
+   * @param read The number of rows read.
+   * @param written The number of rows written.
+   */
+  public void recordSuccess(long startNanos, long read, long written) {
+    latency.record(System.nanoTime() - startNanos);
+
+    if(read != 0) {
+      rowsRead.add(read);
+    }
+
+    if(written != 0) {
+      rowsWritten.add(written);
+    }
+  }
+
+  /**
+   * Record a call that failed. If there is a SQLException in the cause chain,
+   * its SQLState is counted.
+   *
+   * @param startNanos The value of {@link System#nanoTime()} when the call
+   *        started.
+   * @param error The exception that was thrown.
+   */
+  public void recordFailure(long startNanos, Throwable error) {
+    latency.record(System.nanoTime() - startNanos);
+    errors.increment();
+
+    String sqlState = NO_SQL_STATE;
+
+    for(Throwable cause = error; Objects.nonNull(cause); cause =
+        cause.getCause()) {
+      if(cause instanceof SQLException
+          && Objects.nonNull(((SQLException) cause).getSQLState())) {
+        sqlState = ((SQLException) cause).getSQLState();
+        break;
+      }
+    }
+
+    errorsBySqlState.computeIfAbsent(sqlState, state -> new LongAdder())
+        .increment();
+  }
+
+  /**
+   * Record a call without row counts. This suits code that wraps a call in
+   * try/catch/finally and keeps the exception (if any) in a variable.
+   *
+   * @param startNanos The value of {@link System#nanoTime()} when the call
+   *        started.
+   * @param error The exception that was thrown, or {@code null} if the call
+   *        succeeded.
+   */
+  public void record(long startNanos, Throwable error) {
+    if(Objects.isNull(error)) {
+      recordSuccess(startNanos, 0, 0);
+    }
+    else {
+      recordFailure(startNanos, error);
+    }
+  }
+
+  /**
+   * Record rows that were read after the call was timed (by a stream, for
+   * example).
+   *
+   * @param read The number of rows read.
+   */
+  public void addRowsRead(long read) {
+    rowsRead.add(read);
+  }
+
+  @Override
+  public long getCount() {
+    return latency.getCount();
+  }
+
+  @Override
+  public long getErrorCount() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getRowsRead() {
+    return rowsRead.sum();
+  }
+
+  @Override
+  public long getRowsWritten() {
+    return rowsWritten.sum();
+  }
+
+  @Override
+  public double getMeanMicros() {
+    return latency.getMean() / 1000.0;
+  }
+
+  @Override
+  public double getP50Micros() {
+    return latency.getValueAtPercentile(50) / 1000.0;
+  }
+
+  @Override
+  public double getP99Micros() {
+    return latency.getValueAtPercentile(99) / 1000.0;
+  }
+
+  @Override
+  public double getP999Micros() {
+    return latency.getValueAtPercentile(99.9) / 1000.0;
+  }
+
+  @Override
+  public double getMaxMicros() {
+    return latency.getMax() / 1000.0;
+  }
+
+  @Override
+  public Map<String, Long> getErrorsBySqlState() {
+    Map<String, Long> counts = new TreeMap<>();
+    errorsBySqlState.forEach((state, count) -> counts.put(state, count.sum()));
+    return counts;
+  }
+}
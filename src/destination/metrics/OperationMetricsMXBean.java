@@ -0,0 +1,35 @@
+package destination.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of one operation's metrics. Each operation is registered with
+ * the platform MBean server as
+ * {@code destination:type=Operation,name=<operation name>} so it can be
+ * watched with JConsole, VisualVM or any JMX collector. Latencies are in
+ * microseconds.
+ *
+ * @author Promineo
+ *
+ */
+public interface OperationMetricsMXBean {
+  long getCount();
+
+  long getErrorCount();
+
+  long getRowsRead();
+
+  long getRowsWritten();
+
+  double getMeanMicros();
+
+  double getP50Micros();
+
+  double getP99Micros();
+
+  double getP999Micros();
+
+  double getMaxMicros();
+
+  Map<String, Long> getErrorsBySqlState();
+}
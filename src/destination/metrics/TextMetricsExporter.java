@@ -0,0 +1,44 @@
+package destination.metrics;
+
+import java.io.PrintStream;
+import java.util.Collection;
+
+/**
+ * Prints the metrics as a text table, one line per operation. Latencies are in
+ * microseconds.
+ *
+ * @author Promineo
+ *
+ */
+public class TextMetricsExporter implements MetricsExporter {
+  private static final String FORMAT =
+      "%-36s %9s %7s %10s %10s %10s %10s %10s %10s %s%n";
+
+  private final PrintStream out;
+
+  public TextMetricsExporter(PrintStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public void export(Collection<OperationMetrics> operations) {
+    out.printf(FORMAT, "operation", "count", "errors", "p50(us)", "p99(us)",
+        "p999(us)", "max(us)", "rowsRead", "rowsWrite", "errorsBySqlState");
+
+    for(OperationMetrics op : operations) {
+      if(op.getCount() == 0) {
+        continue;
+      }
+
+      out.printf(FORMAT, op.getName(), op.getCount(), op.getErrorCount(),
+          micros(op.getP50Micros()), micros(op.getP99Micros()),
+          micros(op.getP999Micros()), micros(op.getMaxMicros()),
+          op.getRowsRead(), op.getRowsWritten(),
+          op.getErrorCount() == 0 ? "" : op.getErrorsBySqlState());
+    }
+  }
+
+  private static String micros(double value) {
+    return String.format("%.1f", value);
+  }
+}
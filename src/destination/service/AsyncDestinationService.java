@@ -0,0 +1,311 @@
+package destination.service;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import destination.dao.BulkDeleteResult;
+import destination.dao.BulkInsertResult;
+import destination.dao.DbConnection;
+import destination.dao.Page;
+import destination.entity.Comment;
+import destination.entity.Destination;
+import destination.entity.Member;
+import destination.exception.DestinationException;
+
+/**
+ * An asynchronous front end for {@link DestinationService}. Every operation
+ * returns a CompletableFuture right away and runs the blocking JDBC call on
+ * another thread, so callers can start several calls and wait for them
+ * together:
+ *
+ * <pre>
+ * <code>
+ * CompletableFuture&lt;Optional&lt;Member&gt;&gt; member =
+ *     async.fetchMemberById(memberId);
+ * CompletableFuture&lt;Page&lt;Comment&gt;&gt; comments =
+ *     async.fetchDestinationCommentPage(destinationId, null, 20);
+ *
+ * CompletableFuture.allOf(member, comments).join();
+ * </code>
+ * </pre>
+ *
+ * On Java 21 and later the calls run on virtual threads. On older versions they
+ * run on a cached pool of daemon threads. Either way, a {@link Bulkhead} keeps
+ * the number of calls using the database at once to the connection pool size,
+ * so callers wait in a bounded line instead of timing out in the pool. Calls
+ * that don't fit in the line fail with a DestinationException.
+ * <p>
+ * The wrapped DestinationService can still be used directly by blocking
+ * callers.
+ *
+ * @author Promineo
+ *
+ */
+public class AsyncDestinationService implements AutoCloseable {
+  private static final int DEFAULT_MAX_WAITING = 1000;
+  private static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(30);
+
+  private final DestinationService destinationService;
+  private final Bulkhead bulkhead;
+  private final ExecutorService executor;
+
+  /**
+   * Create the asynchronous service. The number of concurrent database calls
+   * is limited to the connection pool size.
+   *
+   * @param destinationService The service that does the work.
+   */
+  public AsyncDestinationService(DestinationService destinationService) {
+    this(destinationService,
+        new Bulkhead(DbConnection.getPool().getMaxSize(), DEFAULT_MAX_WAITING,
+            DEFAULT_MAX_WAIT));
+  }
+
+  /**
+   * Create the asynchronous service with the given bulkhead.
+   *
+   * @param destinationService The service that does the work.
+   * @param bulkhead Limits the number of concurrent database calls.
+   */
+  public AsyncDestinationService(DestinationService destinationService,
+      Bulkhead bulkhead) {
+    this.destinationService = destinationService;
+    this.bulkhead = bulkhead;
+    this.executor = newExecutor();
+  }
+
+  /**
+   * Use a virtual thread per task if this Java version has them. They were
+   * added in Java 21, so they are looked up by reflection to keep this code
+   * compiling on Java 17.
+   *
+   * @return The executor.
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      Method factory =
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "destination-async");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Run a call through the bulkhead on the executor.
+   *
+   * @param <T> The result type.
+   * @param call The blocking call.
+   * @return The future result. If the call throws, the future completes
+   *         exceptionally with the exception (checked exceptions are wrapped
+   *         in a DestinationException).
+   */
+  private <T> CompletableFuture<T> submit(Callable<T> call) {
+    if(!bulkhead.reserve()) {
+      return CompletableFuture.failedFuture(new DestinationException(
+          "Rejected: too many database calls are waiting. " + bulkhead));
+    }
+
+    long reservedAt = System.nanoTime();
+
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        bulkhead.enter(reservedAt);
+
+        try {
+          return call.call();
+        }
+        catch (RuntimeException e) {
+          throw e;
+        }
+        catch (Exception e) {
+          throw new CompletionException(new DestinationException(e));
+        }
+        finally {
+          bulkhead.exit();
+        }
+      }, executor);
+    }
+    catch (RuntimeException e) {
+      /* The executor refused the task (it has been shut down). */
+      bulkhead.cancel();
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Run a call that has no result.
+   *
+   * @param call The blocking call.
+   * @return A future that completes when the call finishes.
+   */
+  private CompletableFuture<Void> run(VoidCall call) {
+    return submit(() -> {
+      call.call();
+      return null;
+    });
+  }
+
+  /**
+   * A blocking call with no result.
+   */
+  @FunctionalInterface
+  private interface VoidCall {
+    void call() throws Exception;
+  }
+
+  public CompletableFuture<Void> createTables() {
+    return run(destinationService::createTables);
+  }
+
+  public CompletableFuture<Void> createMember(Member member) {
+    return run(() -> destinationService.createMember(member));
+  }
+
+  public CompletableFuture<BulkInsertResult> createMembers(
+      Iterable<Member> members) {
+    return submit(() -> destinationService.createMembers(members));
+  }
+
+  public CompletableFuture<List<Member>> fetchAllMembers() {
+    return submit(destinationService::fetchAllMembers);
+  }
+
+  public CompletableFuture<Optional<Member>> fetchMemberById(int memberId) {
+    return submit(() -> destinationService.fetchMemberById(memberId));
+  }
+
+  public CompletableFuture<Optional<Member>> fetchMemberByEmail(
+      String email) {
+    return submit(() -> destinationService.fetchMemberByEmail(email));
+  }
+
+  /**
+   * Stream every member to the callback on a background thread. The callback
+   * runs on that thread, not the caller's.
+   *
+   * @param action The callback to run for each member.
+   * @return A future that completes when all members have been processed.
+   */
+  public CompletableFuture<Void> forEachMember(Consumer<Member> action) {
+    return run(() -> destinationService.forEachMember(action));
+  }
+
+  public CompletableFuture<Page<Member>> fetchMemberPage(String pageToken,
+      int pageSize) {
+    return submit(
+        () -> destinationService.fetchMemberPage(pageToken, pageSize));
+  }
+
+  public CompletableFuture<Page<Destination>> fetchDestinationPage(
+      String pageToken, int pageSize) {
+    return submit(
+        () -> destinationService.fetchDestinationPage(pageToken, pageSize));
+  }
+
+  public CompletableFuture<Page<Destination>> fetchNewestDestinationPage(
+      String pageToken, int pageSize) {
+    return submit(() -> destinationService
+        .fetchNewestDestinationPage(pageToken, pageSize));
+  }
+
+  public CompletableFuture<Page<Comment>> fetchCommentPage(String pageToken,
+      int pageSize) {
+    return submit(
+        () -> destinationService.fetchCommentPage(pageToken, pageSize));
+  }
+
+  public CompletableFuture<Page<Comment>> fetchDestinationCommentPage(
+      int destinationId, String pageToken, int pageSize) {
+    return submit(() -> destinationService
+        .fetchDestinationCommentPage(destinationId, pageToken, pageSize));
+  }
+
+  public CompletableFuture<Void> modifyMember(Member member) {
+    return run(() -> destinationService.modifyMember(member));
+  }
+
+  public CompletableFuture<Void> deleteMember(Integer memberId) {
+    return run(() -> destinationService.deleteMember(memberId));
+  }
+
+  public CompletableFuture<BulkDeleteResult> deleteMembers(int[] memberIds) {
+    return submit(() -> destinationService.deleteMembers(memberIds));
+  }
+
+  public CompletableFuture<Integer> createDestination(
+      Destination destination) {
+    return submit(() -> destinationService.createDestination(destination));
+  }
+
+  public CompletableFuture<Optional<Destination>> fetchDestinationById(
+      int destinationId) {
+    return submit(() -> destinationService.fetchDestinationById(destinationId));
+  }
+
+  public CompletableFuture<Boolean> modifyDestination(Destination destination) {
+    return submit(() -> destinationService.modifyDestination(destination));
+  }
+
+  public CompletableFuture<Boolean> deleteDestination(int destinationId) {
+    return submit(() -> destinationService.deleteDestination(destinationId));
+  }
+
+  public CompletableFuture<List<NearbyDestination>> findNearby(double lat,
+      double lon, double radiusKm, int limit) {
+    return submit(
+        () -> destinationService.findNearby(lat, lon, radiusKm, limit));
+  }
+
+  public CompletableFuture<List<Destination>> searchDestinations(String query,
+      int limit) {
+    return submit(() -> destinationService.searchDestinations(query, limit));
+  }
+
+  /**
+   * Queue a comment to be written in the background. Waiting for room in a
+   * full comment buffer happens on the executor, not the caller's thread.
+   *
+   * @param comment The comment.
+   * @return A future that completes with the generated comment ID once the
+   *         comment has been committed.
+   */
+  public CompletableFuture<Integer> createComment(Comment comment) {
+    return submit(() -> destinationService.createComment(comment))
+        .thenCompose(written -> written);
+  }
+
+  public CompletableFuture<Void> flushComments() {
+    return run(destinationService::flushComments);
+  }
+
+  /**
+   * Return the bulkhead so its counters (active, waiting, rejected) can be
+   * read.
+   *
+   * @return The bulkhead.
+   */
+  public Bulkhead getBulkhead() {
+    return bulkhead;
+  }
+
+  /**
+   * Stop accepting calls. Calls that were already submitted still run.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
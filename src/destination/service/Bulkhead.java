@@ -0,0 +1,138 @@
+package destination.service;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import destination.exception.DestinationException;
+import destination.metrics.Metrics;
+import destination.metrics.OperationMetrics;
+
+/**
+ * Limits how many callers can use the database at the same time. A caller must
+ * {@link #reserve()} a place in line, {@link #enter(long)} before doing
+ * database work and {@link #exit()} afterwards.
+ * Callers beyond the concurrency limit wait in line. If the line is already
+ * full, or a caller waits longer than the maximum wait, the call is rejected
+ * right away. That way an overload fails fast instead of piling up threads.
+ * <p>
+ * The time spent waiting is recorded in the "bulkhead.queueWait" operation
+ * metrics.
+ *
+ * @author Promineo
+ *
+ */
+public class Bulkhead {
+  private static final OperationMetrics QUEUE_WAIT =
+      Metrics.operation("bulkhead.queueWait");
+
+  private final int maxConcurrent;
+  private final int maxWaiting;
+  private final long maxWaitNanos;
+  private final Semaphore permits;
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Create the bulkhead.
+   *
+   * @param maxConcurrent The number of callers allowed in at once.
+   * @param maxWaiting The number of callers allowed to wait in line.
+   * @param maxWait How long a caller may wait before it is rejected.
+   */
+  public Bulkhead(int maxConcurrent, int maxWaiting, Duration maxWait) {
+    this.maxConcurrent = maxConcurrent;
+    this.maxWaiting = maxWaiting;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.permits = new Semaphore(maxConcurrent, true);
+  }
+
+  /**
+   * Reserve a place in line. Call this when the work is submitted so that a
+   * full line is detected before a thread is used. If this returns
+   * {@code true}, {@link #enter(long)} must be called later.
+   *
+   * @return {@code true} if there was room in line, {@code false} if the call
+   *         was rejected.
+   */
+  public boolean reserve() {
+    if(waiting.incrementAndGet() > maxWaiting) {
+      waiting.decrementAndGet();
+      rejected.increment();
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Wait for a turn to use the database. The caller must already have a place
+   * in line from {@link #reserve()}.
+   *
+   * @param reservedAtNanos When the place in line was reserved.
+   * @throws DestinationException Thrown if the caller waited too long or was
+   *         interrupted.
+   */
+  public void enter(long reservedAtNanos) {
+    try {
+      long remaining = maxWaitNanos - (System.nanoTime() - reservedAtNanos);
+
+      if(!permits.tryAcquire(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+        rejected.increment();
+        DestinationException e = new DestinationException(
+            "Rejected: waited more than " + TimeUnit.NANOSECONDS.toMillis(
+                maxWaitNanos) + " ms for one of " + maxConcurrent
+                + " database slots.");
+        QUEUE_WAIT.recordFailure(reservedAtNanos, e);
+        throw e;
+      }
+
+      QUEUE_WAIT.recordSuccess(reservedAtNanos, 0, 0);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DestinationException(e);
+    }
+    finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  /**
+   * Give up a place in line that was reserved but will never be used.
+   */
+  public void cancel() {
+    waiting.decrementAndGet();
+  }
+
+  /**
+   * Give up the turn so the next caller in line can go.
+   */
+  public void exit() {
+    permits.release();
+  }
+
+  public int getMaxConcurrent() {
+    return maxConcurrent;
+  }
+
+  public int getActive() {
+    return maxConcurrent - permits.availablePermits();
+  }
+
+  public int getWaiting() {
+    return waiting.get();
+  }
+
+  public long getRejected() {
+    return rejected.sum();
+  }
+
+  @Override
+  public String toString() {
+    return "Bulkhead [active=" + getActive() + ", maxConcurrent="
+        + maxConcurrent + ", waiting=" + getWaiting() + ", maxWaiting="
+        + maxWaiting + ", rejected=" + getRejected() + "]";
+  }
+}
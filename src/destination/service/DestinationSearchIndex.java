@@ -0,0 +1,384 @@
+package destination.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import destination.dao.DestinationListener;
+import destination.entity.Destination;
+
+/**
+ * An in-memory full-text index over destination names and descriptions. The
+ * description column is unindexed text, so searching it in MySQL means a
+ * {@code LIKE '%word%'} scan of every row. This index is an inverted index: for
+ * each word it keeps the list of destinations that contain it (the posting
+ * list) and how often. A query only reads the posting lists of its own words,
+ * so the cost depends on how many destinations match, not on how much text
+ * has been indexed.
+ * <p>
+ * Matches are ranked with Okapi BM25, which favors destinations where the
+ * query words are frequent, rare across the collection, and found in a short
+ * text. Words in the name count twice, since a word in the name says more
+ * about a destination than a word somewhere in its description.
+ * <p>
+ * Each destination is given a slot number. Posting lists hold slot numbers
+ * and term frequencies in parallel int arrays, so scanning them doesn't box.
+ * Slots of deleted destinations are reused. The index registers as a
+ * {@link DestinationListener} so it stays in step with the destinations table.
+ * Queries share a read lock; changes take the write lock.
+ *
+ * @author Promineo
+ *
+ */
+public class DestinationSearchIndex implements DestinationListener {
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  private static final int NAME_WEIGHT = 2;
+
+  private final Map<String, Postings> postings = new HashMap<>();
+  private final Map<Integer, Integer> slotById = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /* Indexed by slot. */
+  private int[] destinationIds = new int[16];
+  private int[] lengths = new int[16];
+  private String[][] terms = new String[16][];
+
+  private int slotCount;
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private long totalLength;
+
+  /**
+   * Add a destination, or replace it if it is already in the index.
+   *
+   * @param destination The destination.
+   */
+  public void put(Destination destination) {
+    Map<String, Integer> frequencies = new LinkedHashMap<>();
+
+    for(String term : tokenize(destination.getName())) {
+      frequencies.merge(term, NAME_WEIGHT, Integer::sum);
+    }
+
+    for(String term : tokenize(destination.getDescription())) {
+      frequencies.merge(term, 1, Integer::sum);
+    }
+
+    int length = 0;
+
+    for(int frequency : frequencies.values()) {
+      length += frequency;
+    }
+
+    lock.writeLock().lock();
+
+    try {
+      removeLocked(destination.getDestinationId());
+
+      int slot = allocateSlot();
+
+      destinationIds[slot] = destination.getDestinationId();
+      lengths[slot] = length;
+      terms[slot] = frequencies.keySet().toArray(new String[0]);
+      totalLength += length;
+      slotById.put(destination.getDestinationId(), slot);
+
+      for(Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+        postings.computeIfAbsent(entry.getKey(), unused -> new Postings())
+            .add(slot, entry.getValue());
+      }
+    }
+    finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a destination.
+   *
+   * @param destinationId The destination ID.
+   */
+  public void remove(int destinationId) {
+    lock.writeLock().lock();
+
+    try {
+      removeLocked(destinationId);
+    }
+    finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void removeLocked(int destinationId) {
+    Integer slot = slotById.remove(destinationId);
+
+    if(Objects.isNull(slot)) {
+      return;
+    }
+
+    for(String term : terms[slot]) {
+      Postings list = postings.get(term);
+
+      if(list.remove(slot) && list.size == 0) {
+        postings.remove(term);
+      }
+    }
+
+    totalLength -= lengths[slot];
+    terms[slot] = null;
+
+    if(freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    }
+
+    freeSlots[freeCount++] = slot;
+  }
+
+  private int allocateSlot() {
+    if(freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+
+    if(slotCount == destinationIds.length) {
+      destinationIds = Arrays.copyOf(destinationIds, slotCount * 2);
+      lengths = Arrays.copyOf(lengths, slotCount * 2);
+      terms = Arrays.copyOf(terms, slotCount * 2);
+    }
+
+    return slotCount++;
+  }
+
+  /**
+   * Remove every destination.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+
+    try {
+      postings.clear();
+      slotById.clear();
+      Arrays.fill(terms, null);
+      slotCount = 0;
+      freeCount = 0;
+      totalLength = 0;
+    }
+    finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Return the number of destinations in the index.
+   *
+   * @return The number of destinations.
+   */
+  public int size() {
+    lock.readLock().lock();
+
+    try {
+      return slotById.size();
+    }
+    finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void destinationSaved(Destination destination) {
+    put(destination);
+  }
+
+  @Override
+  public void destinationDeleted(int destinationId) {
+    remove(destinationId);
+  }
+
+  /**
+   * Return the destinations that best match the query, best first. A
+   * destination matches if it contains any of the query words.
+   *
+   * @param query The words to search for.
+   * @param limit The maximum number of destinations returned.
+   * @return The destination IDs and scores, best first.
+   */
+  public List<Hit> search(String query, int limit) {
+    List<String> queryTerms = tokenize(query);
+
+    if(limit <= 0 || queryTerms.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    /* The lowest scoring hit kept so far is at the head. */
+    PriorityQueue<Hit> best =
+        new PriorityQueue<>(Comparator.comparingDouble(Hit::getScore));
+
+    lock.readLock().lock();
+
+    try {
+      int documents = slotById.size();
+
+      if(documents == 0) {
+        return new ArrayList<>();
+      }
+
+      double averageLength = Math.max(1.0, (double) totalLength / documents);
+
+      /*
+       * Scores are summed per slot. Only the slots that appear in a posting
+       * list are touched, and only those are visited to pick the best.
+       */
+      double[] scores = new double[slotCount];
+      int[] touched = new int[Math.min(slotCount, 64)];
+      int touchedCount = 0;
+
+      for(String term : queryTerms.stream().distinct().toList()) {
+        Postings list = postings.get(term);
+
+        if(Objects.isNull(list)) {
+          continue;
+        }
+
+        double idf = Math
+            .log(1 + (documents - list.size + 0.5) / (list.size + 0.5));
+
+        for(int index = 0; index < list.size; index++) {
+          int slot = list.slots[index];
+          double frequency = list.frequencies[index];
+          double norm = K1 * (1 - B + B * lengths[slot] / averageLength);
+
+          if(scores[slot] == 0) {
+            if(touchedCount == touched.length) {
+              touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+
+            touched[touchedCount++] = slot;
+          }
+
+          scores[slot] += idf * frequency * (K1 + 1) / (frequency + norm);
+        }
+      }
+
+      for(int index = 0; index < touchedCount; index++) {
+        int slot = touched[index];
+
+        if(best.size() < limit) {
+          best.add(new Hit(destinationIds[slot], scores[slot]));
+        }
+        else if(scores[slot] > best.peek().score) {
+          best.poll();
+          best.add(new Hit(destinationIds[slot], scores[slot]));
+        }
+      }
+    }
+    finally {
+      lock.readLock().unlock();
+    }
+
+    List<Hit> hits = new ArrayList<>(best);
+    hits.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+
+    return hits;
+  }
+
+  /**
+   * Split text into lower case words. A word is a run of letters and digits.
+   * Single characters are skipped.
+   *
+   * @param text The text, which may be {@code null}.
+   * @return The words in the order they appear.
+   */
+  static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+
+    if(Objects.isNull(text)) {
+      return tokens;
+    }
+
+    int start = -1;
+
+    for(int index = 0; index <= text.length(); index++) {
+      boolean wordChar = index < text.length()
+          && Character.isLetterOrDigit(text.charAt(index));
+
+      if(wordChar && start < 0) {
+        start = index;
+      }
+      else if(!wordChar && start >= 0) {
+        if(index - start > 1) {
+          tokens.add(text.substring(start, index).toLowerCase());
+        }
+
+        start = -1;
+      }
+    }
+
+    return tokens;
+  }
+
+  /**
+   * A destination returned by {@link DestinationSearchIndex#search(String,
+   * int)} and its BM25 score.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Hit {
+    private final int destinationId;
+    private final double score;
+
+    private Hit(int destinationId, double score) {
+      this.destinationId = destinationId;
+      this.score = score;
+    }
+
+    public int getDestinationId() {
+      return destinationId;
+    }
+
+    public double getScore() {
+      return score;
+    }
+  }
+
+  /**
+   * The posting list for one word: the slots of the destinations that contain
+   * it and how often, in parallel arrays that grow as needed. A removed slot is
+   * replaced by the last one so the arrays stay packed.
+   */
+  private static class Postings {
+    private int[] slots = new int[4];
+    private int[] frequencies = new int[4];
+    private int size;
+
+    void add(int slot, int frequency) {
+      if(size == slots.length) {
+        slots = Arrays.copyOf(slots, size * 2);
+        frequencies = Arrays.copyOf(frequencies, size * 2);
+      }
+
+      slots[size] = slot;
+      frequencies[size] = frequency;
+      size++;
+    }
+
+    boolean remove(int slot) {
+      for(int index = 0; index < size; index++) {
+        if(slots[index] == slot) {
+          size--;
+          slots[index] = slots[size];
+          frequencies[index] = frequencies[size];
+          return true;
+        }
+      }
+
+      return false;
+    }
+  }
+}
@@ -1,15 +1,41 @@
 package destination.service;
 
-import java.net.URI;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import destination.DestinationsApp;
+import destination.dao.BulkDeleteResult;
+import destination.dao.BulkInsertResult;
+import destination.dao.CommentWriter;
+import destination.dao.ConnectionPool;
+import destination.dao.DbConnection;
 import destination.dao.DestinationDao;
+import destination.dao.Page;
+import destination.dao.SqlScriptReader;
+import destination.dao.SqlScriptRunner;
+import destination.entity.Comment;
+import destination.entity.Destination;
 import destination.entity.Member;
 import destination.exception.DestinationException;
+import destination.metrics.Metrics;
+import destination.metrics.MetricsExporter;
+import destination.metrics.OperationMetrics;
 
 /**
  * This class acts as an intermediary between the input/output layer (class
@@ -24,61 +50,186 @@ public class DestinationService {
   private DestinationDao destinationDao = new DestinationDao();
 
   private static final String DESTINATION_SCHEMA = "destination_schema.sql";
+  private static final int DEFAULT_BATCH_SIZE = 1000;
+  private static final int DEFAULT_FETCH_SIZE = 1000;
+  private static final int DEFAULT_DELETE_CHUNK_SIZE = 500;
+  private static final int MEMBER_CACHE_SIZE = 10_000;
+  private static final Duration MEMBER_CACHE_TTL = Duration.ofMinutes(5);
+  private static final double GEO_CELL_DEGREES = 0.1;
+
+  private static final OperationMetrics CREATE_TABLES =
+      Metrics.operation("service.createTables");
+  private static final OperationMetrics RUN_SCRIPT =
+      Metrics.operation("service.runScript");
+  private static final OperationMetrics CREATE_MEMBER =
+      Metrics.operation("service.createMember");
+  private static final OperationMetrics CREATE_MEMBERS =
+      Metrics.operation("service.createMembers");
+  private static final OperationMetrics FETCH_ALL_MEMBERS =
+      Metrics.operation("service.fetchAllMembers");
+  private static final OperationMetrics FETCH_MEMBER_BY_ID =
+      Metrics.operation("service.fetchMemberById");
+  private static final OperationMetrics FETCH_MEMBER_BY_EMAIL =
+      Metrics.operation("service.fetchMemberByEmail");
+  private static final OperationMetrics STREAM_ALL_MEMBERS =
+      Metrics.operation("service.streamAllMembers");
+  private static final OperationMetrics FOR_EACH_MEMBER =
+      Metrics.operation("service.forEachMember");
+  private static final OperationMetrics FETCH_MEMBER_PAGE =
+      Metrics.operation("service.fetchMemberPage");
+  private static final OperationMetrics FETCH_DESTINATION_PAGE =
+      Metrics.operation("service.fetchDestinationPage");
+  private static final OperationMetrics FETCH_NEWEST_DESTINATION_PAGE =
+      Metrics.operation("service.fetchNewestDestinationPage");
+  private static final OperationMetrics FETCH_COMMENT_PAGE =
+      Metrics.operation("service.fetchCommentPage");
+  private static final OperationMetrics FETCH_DESTINATION_COMMENT_PAGE =
+      Metrics.operation("service.fetchDestinationCommentPage");
+  private static final OperationMetrics MODIFY_MEMBER =
+      Metrics.operation("service.modifyMember");
+  private static final OperationMetrics DELETE_MEMBER =
+      Metrics.operation("service.deleteMember");
+  private static final OperationMetrics DELETE_MEMBERS =
+      Metrics.operation("service.deleteMembers");
+  private static final OperationMetrics CREATE_DESTINATION =
+      Metrics.operation("service.createDestination");
+  private static final OperationMetrics FETCH_DESTINATION_BY_ID =
+      Metrics.operation("service.fetchDestinationById");
+  private static final OperationMetrics MODIFY_DESTINATION =
+      Metrics.operation("service.modifyDestination");
+  private static final OperationMetrics DELETE_DESTINATION =
+      Metrics.operation("service.deleteDestination");
+  private static final OperationMetrics FIND_NEARBY =
+      Metrics.operation("service.findNearby");
+  private static final OperationMetrics SEARCH_DESTINATIONS =
+      Metrics.operation("service.searchDestinations");
+  private static final OperationMetrics LOAD_DESTINATION_INDEXES =
+      Metrics.operation("service.loadDestinationIndexes");
+  private static final OperationMetrics CREATE_COMMENT =
+      Metrics.operation("service.createComment");
+  private static final OperationMetrics FLUSH_COMMENTS =
+      Metrics.operation("service.flushComments");
+
+  private MemberCache memberCache =
+      new MemberCache(MEMBER_CACHE_SIZE, MEMBER_CACHE_TTL);
+
+  /*
+   * Filled from the destinations table the first time they are needed. The DAO
+   * keeps them up to date after that.
+   */
+  private GeoIndex geoIndex = new GeoIndex(GEO_CELL_DEGREES);
+  private DestinationSearchIndex searchIndex = new DestinationSearchIndex();
+  private volatile boolean destinationIndexesLoaded;
+
+  /* Comments are written in batches in the background. */
+  private CommentWriter commentWriter = CommentWriter.builder().build();
+
+  public DestinationService() {
+    destinationDao.addDestinationListener(geoIndex);
+    destinationDao.addDestinationListener(searchIndex);
+  }
 
   /**
    * Read destination_schema.sql and load it as batch SQL statements. This
    * creates (or recreates) the tables.
    */
   public void createTables() {
-    List<String> batch = loadFromFile(DESTINATION_SCHEMA);
-    destinationDao.createTables(batch);
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      List<String> batch = loadFromFile(DESTINATION_SCHEMA);
+      destinationDao.createTables(batch);
+      memberCache.clear();
+
+      /* The tables are empty, so the empty indexes are complete. */
+      geoIndex.clear();
+      searchIndex.clear();
+      destinationIndexesLoaded = true;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      CREATE_TABLES.record(start, error);
+    }
   }
 
   /**
-   * This method loads the given file from the classpath and converts it to a
-   * list of SQL statements.
+   * This method loads the given file and splits it into a list of SQL
+   * statements. The statements are split by {@link SqlScriptReader}, which
+   * understands quotes, comments and the DELIMITER command. Use
+   * {@link #runScript(String, SqlScriptRunner)} for scripts too big to hold in
+   * memory.
    * 
-   * @param fileName The file to read.
+   * @param fileName The file to read. It is looked for on the classpath first
+   *        and then in the file system.
    * @return A list of SQL statements.
    */
-  private List<String> loadFromFile(String fileName) {
-    try {
-      /*
-       * This creates a URI object from the given file name. The class loader is
-       * used to find the file on the classpath. The file is in the src
-       * directory for this Java project. Eclipse automatically copies files in
-       * src to the bin directory when the file is saved. The bin directory is
-       * automatically added to the classpath when the application is run.
-       */
-      URI uri =
-          getClass().getClassLoader().getResource(DESTINATION_SCHEMA).toURI();
+  public List<String> loadFromFile(String fileName) {
+    return SqlScriptReader.readAll(openScript(fileName));
+  }
 
-      /*
-       * The Files.readString() method reads the entire contents of a file into
-       * a String. Files.readString() takes a java.nio.file.Path object, which
-       * is created from the URI object obtained above.
-       */
-      String content = Files.readString(Paths.get(uri));
+  /**
+   * Run a SQL script (a seed or migration script, for example) while it is
+   * being read. The script is never held in memory all at once.
+   * 
+   * @param fileName The file to run. It is looked for on the classpath first
+   *        and then in the file system.
+   * @param runner Sets the chunk size, transactions, timing and progress
+   *        listener.
+   * @return The number of statements run, the time taken and the slowest
+   *         statements.
+   */
+  public SqlScriptRunner.Result runScript(String fileName,
+      SqlScriptRunner runner) {
+    long start = System.nanoTime();
+    Throwable error = null;
 
-      /*
-       * Fix the content. Replace all line endings (cr/lf for Windows, lf for
-       * MacOS) with spaces. Then replace all multiple spaces with single
-       * spaces. Then replace all "( " with "(". This isn't necessary for the
-       * SQL parser but it makes the SQL strings prettier.
-       */
-      content = content.replace("\r\n", " ").replace("\n", " ")
-          .replaceAll(" +", " ").replace("( ", "(");
+    try (SqlScriptReader script = new SqlScriptReader(openScript(fileName))) {
+      SqlScriptRunner.Result result = runner.run(script);
 
-      String[] lines = content.split(";");
+      /* The script may have changed anything. */
+      memberCache.clear();
+      destinationIndexesLoaded = false;
+      return result;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      RUN_SCRIPT.record(start, error);
+    }
+  }
 
+  /**
+   * Open a script as UTF-8 text.
+   * 
+   * @param fileName The file name.
+   * @return A buffered reader.
+   */
+  private Reader openScript(String fileName) {
+    try {
       /*
-       * This turns the array of String into a Stream of String. Then, each line
-       * is trimmed (the String::trim method reference). Then, it is converted
-       * to a list and returned.
+       * The class loader is used to find the file on the classpath. The file
+       * is in the src directory for this Java project. Eclipse automatically
+       * copies files in src to the bin directory when the file is saved. The
+       * bin directory is automatically added to the classpath when the
+       * application is run.
        */
-      return Stream.of(lines).map(String::trim).toList();
+      InputStream in =
+          getClass().getClassLoader().getResourceAsStream(fileName);
+
+      if(Objects.isNull(in)) {
+        in = Files.newInputStream(Path.of(fileName));
+      }
+
+      return new BufferedReader(
+          new InputStreamReader(in, StandardCharsets.UTF_8));
     }
-    catch (Exception e) {
+    catch (IOException e) {
       throw new DestinationException(e);
     }
   }
@@ -90,7 +241,63 @@ public class DestinationService {
    * @throws SQLException
    */
   public void createMember(Member member) throws SQLException {
-    destinationDao.createMember(member);
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      destinationDao.createMember(member);
+      memberCache.invalidateEmail(member.getEmail());
+    }
+    catch (SQLException | RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      CREATE_MEMBER.record(start, error);
+    }
+  }
+
+  /**
+   * Create many members using batched inserts with the default batch size.
+   * 
+   * @param members The members to create.
+   * @return The generated member IDs and any rows that were rejected.
+   */
+  public BulkInsertResult createMembers(Iterable<Member> members) {
+    return createMembers(members, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * Create many members using batched inserts.
+   * 
+   * @param members The members to create.
+   * @param batchSize The number of rows sent and committed together.
+   * @return The generated member IDs and any rows that were rejected.
+   */
+  public BulkInsertResult createMembers(Iterable<Member> members,
+      int batchSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      BulkInsertResult result =
+          destinationDao.createMembers(members, batchSize);
+
+      /*
+       * The members may come from a one-shot Iterable (a file reader, for
+       * example) so they can't be walked again to invalidate each email. A bulk
+       * load is rare enough that clearing the cache is cheaper anyway.
+       */
+      memberCache.clear();
+      return result;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      CREATE_MEMBERS.record(start, error);
+    }
   }
 
   /**
@@ -100,7 +307,276 @@ public class DestinationService {
    * @throws SQLException
    */
   public List<Member> fetchAllMembers() throws SQLException {
-    return destinationDao.fetchAllMembers();
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchAllMembers();
+    }
+    catch (SQLException | RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_ALL_MEMBERS.record(start, error);
+    }
+  }
+
+  /**
+   * Return the member with the given ID. The member cache is checked first;
+   * the database is only read on a cache miss.
+   * 
+   * @param memberId The member ID.
+   * @return The member, or an empty Optional if there is no such member.
+   */
+  public Optional<Member> fetchMemberById(int memberId) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      Member cached = memberCache.getById(memberId);
+
+      if(Objects.nonNull(cached)) {
+        return Optional.of(cached);
+      }
+
+      long version = memberCache.version();
+      Optional<Member> member = destinationDao.fetchMemberById(memberId);
+
+      member.ifPresent(found -> memberCache.put(found, version));
+      return member;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_MEMBER_BY_ID.record(start, error);
+    }
+  }
+
+  /**
+   * Return the member with the given email address. The member cache is
+   * checked first; the database is only read on a cache miss.
+   * 
+   * @param email The email address.
+   * @return The member, or an empty Optional if there is no such member.
+   */
+  public Optional<Member> fetchMemberByEmail(String email) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      Member cached = memberCache.getByEmail(email);
+
+      if(Objects.nonNull(cached)) {
+        return Optional.of(cached);
+      }
+
+      long version = memberCache.version();
+      Optional<Member> member = destinationDao.fetchMemberByEmail(email);
+
+      member.ifPresent(found -> memberCache.put(found, version));
+      return member;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_MEMBER_BY_EMAIL.record(start, error);
+    }
+  }
+
+  /**
+   * Return the member cache hit, miss and eviction counters.
+   * 
+   * @return The cache statistics.
+   */
+  public MemberCache.Stats getMemberCacheStats() {
+    return memberCache.getStats();
+  }
+
+  /**
+   * Stream all members without loading them into memory. The stream holds a
+   * database connection, so it must be closed (use try-with-resources).
+   * 
+   * @return The stream of members.
+   */
+  public Stream<Member> streamAllMembers() {
+    return streamAllMembers(DEFAULT_FETCH_SIZE);
+  }
+
+  /**
+   * Stream all members, fetching {@code fetchSize} rows from the server at a
+   * time. The stream must be closed.
+   * 
+   * @param fetchSize The number of rows per server round trip.
+   * @return The stream of members.
+   */
+  public Stream<Member> streamAllMembers(int fetchSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.streamAllMembers(fetchSize);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      STREAM_ALL_MEMBERS.record(start, error);
+    }
+  }
+
+  /**
+   * Process every member with the given callback. The rows are streamed from
+   * the database and the connection is closed when this returns.
+   * 
+   * @param action The callback to run for each member.
+   */
+  public void forEachMember(Consumer<Member> action) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      try (Stream<Member> members = streamAllMembers()) {
+        members.forEach(action);
+      }
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FOR_EACH_MEMBER.record(start, error);
+    }
+  }
+
+  /**
+   * Return a page of members in member ID order.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of members on the page.
+   * @return The page of members.
+   */
+  public Page<Member> fetchMemberPage(String pageToken, int pageSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchMemberPage(pageToken, pageSize);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_MEMBER_PAGE.record(start, error);
+    }
+  }
+
+  /**
+   * Return a page of destinations in destination ID order.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of destinations on the page.
+   * @return The page of destinations.
+   */
+  public Page<Destination> fetchDestinationPage(String pageToken,
+      int pageSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchDestinationPage(pageToken, pageSize);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_DESTINATION_PAGE.record(start, error);
+    }
+  }
+
+  /**
+   * Return a page of destinations, most recently published first.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of destinations on the page.
+   * @return The page of destinations.
+   */
+  public Page<Destination> fetchNewestDestinationPage(String pageToken,
+      int pageSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchNewestDestinationPage(pageToken, pageSize);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_NEWEST_DESTINATION_PAGE.record(start, error);
+    }
+  }
+
+  /**
+   * Return a page of comments in comment ID order.
+   * 
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of comments on the page.
+   * @return The page of comments.
+   */
+  public Page<Comment> fetchCommentPage(String pageToken, int pageSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchCommentPage(pageToken, pageSize);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_COMMENT_PAGE.record(start, error);
+    }
+  }
+
+  /**
+   * Return a page of the comments on a destination in comment ID order.
+   * 
+   * @param destinationId The destination ID.
+   * @param pageToken The token from the previous page, or {@code null} for the
+   *        first page.
+   * @param pageSize The maximum number of comments on the page.
+   * @return The page of comments.
+   */
+  public Page<Comment> fetchDestinationCommentPage(int destinationId,
+      String pageToken, int pageSize) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchDestinationCommentPage(destinationId,
+          pageToken, pageSize);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_DESTINATION_COMMENT_PAGE.record(start, error);
+    }
   }
 
   /**
@@ -111,7 +587,20 @@ public class DestinationService {
    * @throws SQLException
    */
   public void modifyMember(Member member) throws SQLException {
-    destinationDao.modifyMember(member);
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      destinationDao.modifyMember(member);
+    }
+    catch (SQLException | RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      memberCache.invalidate(member.getMemberId());
+      MODIFY_MEMBER.record(start, error);
+    }
   }
 
   /**
@@ -120,7 +609,379 @@ public class DestinationService {
    * @param memberId
    */
   public void deleteMember(Integer memberId) {
-    destinationDao.deleteMember(memberId);
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      destinationDao.deleteMember(memberId);
+      memberCache.invalidate(memberId);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      DELETE_MEMBER.record(start, error);
+    }
+  }
+
+  /**
+   * Delete many members with their destinations and comments, in chunks of
+   * the default size.
+   * 
+   * @param memberIds The IDs of the members to delete.
+   * @return The number of rows deleted from each table.
+   */
+  public BulkDeleteResult deleteMembers(int[] memberIds) {
+    return deleteMembers(memberIds, DEFAULT_DELETE_CHUNK_SIZE, null);
+  }
+
+  /**
+   * Delete many members with their destinations and comments. Each chunk of
+   * members is deleted in its own short transaction.
+   * 
+   * @param memberIds The IDs of the members to delete.
+   * @param chunkSize The number of members deleted per transaction.
+   * @param progress Called with the running totals after each chunk. May be
+   *        {@code null}.
+   * @return The number of rows deleted from each table.
+   */
+  public BulkDeleteResult deleteMembers(int[] memberIds, int chunkSize,
+      Consumer<BulkDeleteResult> progress) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.deleteMembers(memberIds, chunkSize, progress);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      /* Some chunks may have been deleted even if a later one failed. */
+      for(int memberId : memberIds) {
+        memberCache.invalidate(memberId);
+      }
+
+      DELETE_MEMBERS.record(start, error);
+    }
+  }
+
+  /**
+   * Create a destination. The spatial index is updated by the DAO.
+   * 
+   * @param destination The destination. The destination ID is ignored.
+   * @return The generated destination ID.
+   */
+  public int createDestination(Destination destination) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.createDestination(destination);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      CREATE_DESTINATION.record(start, error);
+    }
+  }
+
+  /**
+   * Return the destination with the given ID.
+   * 
+   * @param destinationId The destination ID.
+   * @return The destination, or an empty Optional if there is no such
+   *         destination.
+   */
+  public Optional<Destination> fetchDestinationById(int destinationId) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.fetchDestinationById(destinationId);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FETCH_DESTINATION_BY_ID.record(start, error);
+    }
+  }
+
+  /**
+   * Update a destination. If an attribute in the Destination object is
+   * {@code null}, the value is not updated.
+   * 
+   * @param destination The destination. The destination ID must be set.
+   * @return {@code true} if the destination exists.
+   */
+  public boolean modifyDestination(Destination destination) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.modifyDestination(destination);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      MODIFY_DESTINATION.record(start, error);
+    }
+  }
+
+  /**
+   * Delete the destination with the given ID and its comments.
+   * 
+   * @param destinationId The destination ID.
+   * @return {@code true} if the destination existed.
+   */
+  public boolean deleteDestination(int destinationId) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return destinationDao.deleteDestination(destinationId);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      DELETE_DESTINATION.record(start, error);
+    }
+  }
+
+  /**
+   * Return the destinations within a radius of a point, nearest first. The
+   * search runs against the in-memory {@link GeoIndex}, so no geolocation
+   * strings are parsed in SQL. Only the destinations found are read from the
+   * database, with one query.
+   * 
+   * @param lat The latitude of the point in degrees.
+   * @param lon The longitude of the point in degrees.
+   * @param radiusKm The radius in kilometers.
+   * @param limit The maximum number of destinations returned.
+   * @return The destinations and their distances, nearest first.
+   */
+  public List<NearbyDestination> findNearby(double lat, double lon,
+      double radiusKm, int limit) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      loadDestinationIndexes();
+
+      List<GeoIndex.Neighbor> neighbors =
+          geoIndex.findNearby(lat, lon, radiusKm, limit);
+      Map<Integer, Destination> destinations = new HashMap<>();
+
+      for(Destination destination : destinationDao.fetchDestinationsByIds(
+          neighbors.stream().map(GeoIndex.Neighbor::getDestinationId)
+              .toList())) {
+        destinations.put(destination.getDestinationId(), destination);
+      }
+
+      List<NearbyDestination> nearby = new ArrayList<>(neighbors.size());
+
+      for(GeoIndex.Neighbor neighbor : neighbors) {
+        Destination destination =
+            destinations.get(neighbor.getDestinationId());
+
+        /* Skip a destination deleted by another process. */
+        if(Objects.nonNull(destination)) {
+          nearby.add(
+              new NearbyDestination(destination, neighbor.getDistanceKm()));
+        }
+      }
+
+      return nearby;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FIND_NEARBY.record(start, error);
+    }
+  }
+
+  /**
+   * Return the destinations whose name or description best match the query,
+   * best first. The search runs against the in-memory
+   * {@link DestinationSearchIndex} and ranks with BM25, so the description
+   * column is never scanned. Only the destinations found are read from the
+   * database, with one query.
+   * 
+   * @param query The words to search for.
+   * @param limit The maximum number of destinations returned.
+   * @return The destinations, best match first.
+   */
+  public List<Destination> searchDestinations(String query, int limit) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      loadDestinationIndexes();
+
+      List<DestinationSearchIndex.Hit> hits = searchIndex.search(query, limit);
+      Map<Integer, Destination> destinations = new HashMap<>();
+
+      for(Destination destination : destinationDao.fetchDestinationsByIds(
+          hits.stream().map(DestinationSearchIndex.Hit::getDestinationId)
+              .toList())) {
+        destinations.put(destination.getDestinationId(), destination);
+      }
+
+      List<Destination> ranked = new ArrayList<>(hits.size());
+
+      for(DestinationSearchIndex.Hit hit : hits) {
+        Destination destination = destinations.get(hit.getDestinationId());
+
+        /* Skip a destination deleted by another process. */
+        if(Objects.nonNull(destination)) {
+          ranked.add(destination);
+        }
+      }
+
+      return ranked;
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      SEARCH_DESTINATIONS.record(start, error);
+    }
+  }
+
+  /**
+   * Fill the spatial and full-text indexes with one pass over the destinations
+   * table, unless that has already been done. This is called on the first
+   * search. Call it at startup to take that cost up front.
+   */
+  public void loadDestinationIndexes() {
+    if(destinationIndexesLoaded) {
+      return;
+    }
+
+    synchronized(geoIndex) {
+      if(!destinationIndexesLoaded) {
+        long start = System.nanoTime();
+        Throwable error = null;
+
+        geoIndex.clear();
+        searchIndex.clear();
+
+        try (Stream<Destination> destinations =
+            destinationDao.streamAllDestinations(DEFAULT_FETCH_SIZE)) {
+          destinations.forEach(destination -> {
+            geoIndex.put(destination);
+            searchIndex.put(destination);
+          });
+
+          destinationIndexesLoaded = true;
+        }
+        catch (RuntimeException e) {
+          error = e;
+          throw e;
+        }
+        finally {
+          LOAD_DESTINATION_INDEXES.record(start, error);
+        }
+      }
+    }
+  }
+
+  /**
+   * Queue a comment to be written. Comments are written in batches, so this
+   * normally returns before the comment is in the database. If a lot of
+   * comments are waiting, this blocks until there is room.
+   * 
+   * @param comment The comment.
+   * @return A future that completes with the generated comment ID once the
+   *         comment has been committed.
+   */
+  public CompletableFuture<Integer> createComment(Comment comment) {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      return commentWriter.submit(comment);
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      CREATE_COMMENT.record(start, error);
+    }
+  }
+
+  /**
+   * Write all queued comments now and wait until they are committed.
+   */
+  public void flushComments() {
+    long start = System.nanoTime();
+    Throwable error = null;
+
+    try {
+      commentWriter.flush();
+    }
+    catch (RuntimeException e) {
+      error = e;
+      throw e;
+    }
+    finally {
+      FLUSH_COMMENTS.record(start, error);
+    }
+  }
+
+  /**
+   * Return the comment writer queue depth and batch counters.
+   * 
+   * @return The comment writer statistics.
+   */
+  public CommentWriter.Stats getCommentWriterStats() {
+    return commentWriter.getStats();
+  }
+
+  /**
+   * Send the per-operation metrics (latency percentiles, row counts and errors)
+   * to the given exporter.
+   * 
+   * @param exporter Where to send the metrics.
+   */
+  public void exportMetrics(MetricsExporter exporter) {
+    Metrics.export(exporter);
+  }
+
+  /**
+   * Return the connection pool counters.
+   * 
+   * @return The pool statistics.
+   */
+  public ConnectionPool.Stats getPoolStats() {
+    return DbConnection.getPool().getStats();
+  }
+
+  /**
+   * Write the queued comments and release the pooled database connections.
+   * Call this when the application is finished.
+   */
+  public void shutdown() {
+    try {
+      commentWriter.close();
+    }
+    finally {
+      DbConnection.closePool();
+    }
   }
 
 }
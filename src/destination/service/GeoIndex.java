@@ -0,0 +1,399 @@
+package destination.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import destination.dao.DestinationListener;
+import destination.entity.Destination;
+
+/**
+ * An in-memory spatial index over destination geolocations. The globe is cut
+ * into a grid of cells a fixed number of degrees on a side, and each
+ * destination is kept in the cell its latitude and longitude fall into. A
+ * radius query only looks at the cells that overlap the circle's bounding box,
+ * so the cost depends on how many destinations are nearby, not on how many
+ * there are in total. The coordinates are parsed once, when a destination is
+ * added, instead of on every query.
+ * <p>
+ * Each cell stores its destinations in parallel primitive arrays so a query
+ * scans them without boxing. The index registers as a
+ * {@link DestinationListener} so it stays in step with the destinations table.
+ * Reads share a read lock; changes take the write lock.
+ *
+ * @author Promineo
+ *
+ */
+public class GeoIndex implements DestinationListener {
+  private static final double EARTH_RADIUS_KM = 6371.0088;
+  private static final double KM_PER_DEGREE_LATITUDE = 111.32;
+
+  private final double cellDegrees;
+  private final int lonCells;
+
+  private final Map<Long, Cell> cells = new HashMap<>();
+  private final Map<Integer, Long> cellKeyById = new HashMap<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * Create the index.
+   *
+   * @param cellDegrees The size of a grid cell in degrees. A cell should be
+   *        about as wide as a typical query radius. 0.1 degrees is about 11 km.
+   */
+  public GeoIndex(double cellDegrees) {
+    if(cellDegrees <= 0 || cellDegrees > 180) {
+      throw new IllegalArgumentException(
+          "Cell size must be more than 0 and at most 180 degrees.");
+    }
+
+    this.cellDegrees = cellDegrees;
+    this.lonCells = (int) Math.ceil(360 / cellDegrees);
+  }
+
+  /**
+   * Add a destination, or move it if it is already in the index. A destination
+   * without a valid geolocation is removed.
+   *
+   * @param destination The destination.
+   */
+  public void put(Destination destination) {
+    double[] point = parseGeolocation(destination.getGeolocation());
+    int destinationId = destination.getDestinationId();
+
+    lock.writeLock().lock();
+
+    try {
+      removeLocked(destinationId);
+
+      if(Objects.nonNull(point)) {
+        long key = cellKey(latCell(point[0]), lonCell(point[1]));
+
+        cells.computeIfAbsent(key, unused -> new Cell()).add(destinationId,
+            point[0], point[1]);
+        cellKeyById.put(destinationId, key);
+      }
+    }
+    finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove a destination.
+   *
+   * @param destinationId The destination ID.
+   */
+  public void remove(int destinationId) {
+    lock.writeLock().lock();
+
+    try {
+      removeLocked(destinationId);
+    }
+    finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void removeLocked(int destinationId) {
+    Long key = cellKeyById.remove(destinationId);
+
+    if(Objects.nonNull(key)) {
+      Cell cell = cells.get(key);
+
+      if(cell.remove(destinationId) && cell.size == 0) {
+        cells.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Remove every destination.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+
+    try {
+      cells.clear();
+      cellKeyById.clear();
+    }
+    finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Return the number of destinations in the index.
+   *
+   * @return The number of destinations.
+   */
+  public int size() {
+    lock.readLock().lock();
+
+    try {
+      return cellKeyById.size();
+    }
+    finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void destinationSaved(Destination destination) {
+    put(destination);
+  }
+
+  @Override
+  public void destinationDeleted(int destinationId) {
+    remove(destinationId);
+  }
+
+  /**
+   * Return the destinations within a radius of a point, nearest first.
+   *
+   * @param lat The latitude of the point in degrees.
+   * @param lon The longitude of the point in degrees.
+   * @param radiusKm The radius in kilometers.
+   * @param limit The maximum number of destinations returned.
+   * @return The destination IDs and distances, nearest first.
+   */
+  public List<Neighbor> findNearby(double lat, double lon, double radiusKm,
+      int limit) {
+    if(limit <= 0 || radiusKm < 0) {
+      return new ArrayList<>();
+    }
+
+    /* The furthest neighbor found so far is at the head. */
+    PriorityQueue<Neighbor> nearest = new PriorityQueue<>(
+        Comparator.comparingDouble(Neighbor::getDistanceKm).reversed());
+
+    lock.readLock().lock();
+
+    try {
+      for(Cell cell : candidateCells(lat, lon, radiusKm)) {
+        for(int index = 0; index < cell.size; index++) {
+          double distance =
+              distanceKm(lat, lon, cell.lats[index], cell.lons[index]);
+
+          if(distance > radiusKm) {
+            continue;
+          }
+
+          if(nearest.size() < limit) {
+            nearest.add(new Neighbor(cell.ids[index], distance));
+          }
+          else if(distance < nearest.peek().distanceKm) {
+            nearest.poll();
+            nearest.add(new Neighbor(cell.ids[index], distance));
+          }
+        }
+      }
+    }
+    finally {
+      lock.readLock().unlock();
+    }
+
+    List<Neighbor> neighbors = new ArrayList<>(nearest);
+    neighbors.sort(Comparator.comparingDouble(Neighbor::getDistanceKm));
+
+    return neighbors;
+  }
+
+  /**
+   * Return the cells that overlap the bounding box of the search circle. The
+   * longitude range widens toward the poles (a degree of longitude gets
+   * shorter) and wraps around at the 180th meridian. If the box touches a pole,
+   * every longitude is included. If the box covers more cells than there are
+   * non-empty cells, the non-empty cells are simply all returned.
+   *
+   * @param lat The latitude of the center.
+   * @param lon The longitude of the center.
+   * @param radiusKm The radius.
+   * @return The cells to scan.
+   */
+  private Collection<Cell> candidateCells(double lat, double lon,
+      double radiusKm) {
+    double latDelta = radiusKm / KM_PER_DEGREE_LATITUDE;
+    double latMin = lat - latDelta;
+    double latMax = lat + latDelta;
+    double lonDelta = 180;
+
+    if(latMin > -90 && latMax < 90) {
+      double widest = Math.max(Math.abs(latMin), Math.abs(latMax));
+      lonDelta = Math.min(180, latDelta / Math.cos(Math.toRadians(widest)));
+    }
+
+    int latFrom = latCell(Math.max(latMin, -90));
+    int latTo = latCell(Math.min(latMax, 90));
+    int lonFrom;
+    int lonCount;
+
+    if(lonDelta >= 180) {
+      lonFrom = 0;
+      lonCount = lonCells;
+    }
+    else {
+      lonFrom = (int) Math.floor((lon - lonDelta + 180) / cellDegrees);
+      int lonTo = (int) Math.floor((lon + lonDelta + 180) / cellDegrees);
+      lonCount = Math.min(lonTo - lonFrom + 1, lonCells);
+    }
+
+    if((long) (latTo - latFrom + 1) * lonCount >= cells.size()) {
+      return cells.values();
+    }
+
+    List<Cell> candidates = new ArrayList<>();
+
+    for(int latCell = latFrom; latCell <= latTo; latCell++) {
+      for(int offset = 0; offset < lonCount; offset++) {
+        int lonCell = Math.floorMod(lonFrom + offset, lonCells);
+        Cell cell = cells.get(cellKey(latCell, lonCell));
+
+        if(Objects.nonNull(cell)) {
+          candidates.add(cell);
+        }
+      }
+    }
+
+    return candidates;
+  }
+
+  private int latCell(double lat) {
+    return (int) Math.floor((lat + 90) / cellDegrees);
+  }
+
+  private int lonCell(double lon) {
+    return Math.floorMod((int) Math.floor((lon + 180) / cellDegrees),
+        lonCells);
+  }
+
+  private static long cellKey(int latCell, int lonCell) {
+    return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Parse a geolocation in the form "latitude,longitude" (for example,
+   * "45.5231,-122.6765").
+   *
+   * @param geolocation The geolocation.
+   * @return The latitude and longitude, or {@code null} if the geolocation is
+   *         missing, badly formed or out of range.
+   */
+  public static double[] parseGeolocation(String geolocation) {
+    if(Objects.isNull(geolocation)) {
+      return null;
+    }
+
+    int comma = geolocation.indexOf(',');
+
+    if(comma < 0) {
+      return null;
+    }
+
+    try {
+      double lat = Double.parseDouble(geolocation.substring(0, comma).trim());
+      double lon = Double.parseDouble(geolocation.substring(comma + 1).trim());
+
+      if(lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+        return null;
+      }
+
+      return new double[] {lat, lon};
+    }
+    catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Return the great-circle distance between two points using the haversine
+   * formula.
+   *
+   * @param lat1 The latitude of the first point in degrees.
+   * @param lon1 The longitude of the first point in degrees.
+   * @param lat2 The latitude of the second point in degrees.
+   * @param lon2 The longitude of the second point in degrees.
+   * @return The distance in kilometers.
+   */
+  public static double distanceKm(double lat1, double lon1, double lat2,
+      double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double sinLat = Math.sin(dLat / 2);
+    double sinLon = Math.sin(dLon / 2);
+    double a = sinLat * sinLat + Math.cos(Math.toRadians(lat1))
+        * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+
+  /**
+   * A destination found by {@link GeoIndex#findNearby(double, double, double,
+   * int)} and its distance from the search point.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Neighbor {
+    private final int destinationId;
+    private final double distanceKm;
+
+    private Neighbor(int destinationId, double distanceKm) {
+      this.destinationId = destinationId;
+      this.distanceKm = distanceKm;
+    }
+
+    public int getDestinationId() {
+      return destinationId;
+    }
+
+    public double getDistanceKm() {
+      return distanceKm;
+    }
+  }
+
+  /**
+   * The destinations in one grid cell, in parallel arrays that grow as needed.
+   * A removed destination is replaced by the last one so the arrays stay
+   * packed.
+   */
+  private static class Cell {
+    private int[] ids = new int[4];
+    private double[] lats = new double[4];
+    private double[] lons = new double[4];
+    private int size;
+
+    void add(int id, double lat, double lon) {
+      if(size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+        lats = Arrays.copyOf(lats, size * 2);
+        lons = Arrays.copyOf(lons, size * 2);
+      }
+
+      ids[size] = id;
+      lats[size] = lat;
+      lons[size] = lon;
+      size++;
+    }
+
+    boolean remove(int id) {
+      for(int index = 0; index < size; index++) {
+        if(ids[index] == id) {
+          size--;
+          ids[index] = ids[size];
+          lats[index] = lats[size];
+          lons[index] = lons[size];
+          return true;
+        }
+      }
+
+      return false;
+    }
+  }
+}
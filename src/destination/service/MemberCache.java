@@ -0,0 +1,294 @@
+package destination.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import destination.entity.Member;
+
+/**
+ * A bounded, in-process cache of members keyed by member ID, with a secondary
+ * index on the (unique) email address. When the cache is full, the least
+ * recently used member is evicted. Members also expire after a fixed time to
+ * live so that changes made outside this process are eventually seen.
+ * <p>
+ * All methods are synchronized. The work done while holding the lock is a
+ * couple of hash map operations, so contention is low compared to the database
+ * round trip the cache saves.
+ * <p>
+ * A read that misses the cache goes to the database, which takes time. If the
+ * member is modified in the meantime, the value read from the database is
+ * stale. To avoid caching it, the caller takes a {@link #version()} before the
+ * read and passes it to {@link #put(Member, long)}. Every invalidation bumps
+ * the version, so a stale value is simply not cached.
+ *
+ * @author Promineo
+ *
+ */
+public class MemberCache {
+  private final int maxSize;
+  private final long ttlNanos;
+
+  /* Access-ordered, so the eldest entry is the least recently used. */
+  private final LinkedHashMap<Integer, Entry> byId;
+  private final Map<String, Integer> idByEmail = new HashMap<>();
+  private long version;
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long expirations;
+  private long invalidations;
+
+  /**
+   * Create the cache.
+   *
+   * @param maxSize The maximum number of members held.
+   * @param ttl How long a member stays in the cache after it is loaded.
+   */
+  public MemberCache(int maxSize, Duration ttl) {
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    this.byId = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Return the cached member with the given ID.
+   *
+   * @param memberId The member ID.
+   * @return The member, or {@code null} if it is not cached (or has expired).
+   */
+  public synchronized Member getById(int memberId) {
+    Entry entry = byId.get(memberId);
+
+    if(Objects.isNull(entry)) {
+      misses++;
+      return null;
+    }
+
+    if(System.nanoTime() - entry.expiresAtNanos > 0) {
+      remove(memberId);
+      expirations++;
+      misses++;
+      return null;
+    }
+
+    hits++;
+    return entry.member;
+  }
+
+  /**
+   * Return the cached member with the given email address.
+   *
+   * @param email The email address.
+   * @return The member, or {@code null} if it is not cached.
+   */
+  public synchronized Member getByEmail(String email) {
+    Integer memberId = idByEmail.get(email);
+
+    if(Objects.isNull(memberId)) {
+      misses++;
+      return null;
+    }
+
+    return getById(memberId);
+  }
+
+  /**
+   * Return the current version. Take this before reading from the database
+   * and pass it to {@link #put(Member, long)}.
+   *
+   * @return The version.
+   */
+  public synchronized long version() {
+    return version;
+  }
+
+  /**
+   * Add a member that was read from the database. The member is not cached if
+   * anything was invalidated since the version was taken, because the member
+   * may have been changed after it was read.
+   *
+   * @param member The member. The member ID must not be {@code null}.
+   * @param readVersion The version taken before the member was read.
+   */
+  public synchronized void put(Member member, long readVersion) {
+    if(readVersion != version) {
+      return;
+    }
+
+    remove(member.getMemberId());
+
+    byId.put(member.getMemberId(),
+        new Entry(member, System.nanoTime() + ttlNanos));
+
+    if(Objects.nonNull(member.getEmail())) {
+      idByEmail.put(member.getEmail(), member.getMemberId());
+    }
+
+    evictIfFull();
+  }
+
+  /**
+   * Remove a member from the cache. Call this whenever the member row changes.
+   *
+   * @param memberId The member ID.
+   */
+  public synchronized void invalidate(int memberId) {
+    version++;
+    invalidations++;
+    remove(memberId);
+  }
+
+  /**
+   * Remove the member with the given email address from the cache. Call this
+   * when a row with the email address is created.
+   *
+   * @param email The email address.
+   */
+  public synchronized void invalidateEmail(String email) {
+    version++;
+    invalidations++;
+
+    Integer memberId = idByEmail.get(email);
+
+    if(Objects.nonNull(memberId)) {
+      remove(memberId);
+    }
+  }
+
+  /**
+   * Remove everything from the cache.
+   */
+  public synchronized void clear() {
+    version++;
+    invalidations++;
+    byId.clear();
+    idByEmail.clear();
+  }
+
+  /**
+   * Remove the member and its email index entry.
+   *
+   * @param memberId The member ID.
+   */
+  private void remove(int memberId) {
+    Entry entry = byId.remove(memberId);
+
+    if(Objects.nonNull(entry) && Objects.nonNull(entry.member.getEmail())) {
+      idByEmail.remove(entry.member.getEmail(), memberId);
+    }
+  }
+
+  /**
+   * Evict least recently used members until the cache is within its size.
+   */
+  private void evictIfFull() {
+    Iterator<Map.Entry<Integer, Entry>> eldest = byId.entrySet().iterator();
+
+    while (byId.size() > maxSize && eldest.hasNext()) {
+      Entry entry = eldest.next().getValue();
+      eldest.remove();
+
+      if(Objects.nonNull(entry.member.getEmail())) {
+        idByEmail.remove(entry.member.getEmail(), entry.member.getMemberId());
+      }
+
+      evictions++;
+    }
+  }
+
+  /**
+   * Return a snapshot of the cache counters.
+   *
+   * @return The statistics.
+   */
+  public synchronized Stats getStats() {
+    return new Stats(byId.size(), maxSize, hits, misses, evictions,
+        expirations, invalidations);
+  }
+
+  /**
+   * A cached member and when it expires.
+   */
+  private static class Entry {
+    private final Member member;
+    private final long expiresAtNanos;
+
+    private Entry(Member member, long expiresAtNanos) {
+      this.member = member;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+
+  /**
+   * A point-in-time snapshot of the cache counters.
+   *
+   * @author Promineo
+   *
+   */
+  public static class Stats {
+    private final int size;
+    private final int maxSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long invalidations;
+
+    private Stats(int size, int maxSize, long hits, long misses,
+        long evictions, long expirations, long invalidations) {
+      this.size = size;
+      this.maxSize = maxSize;
+      this.hits = hits;
+      this.misses = misses;
+      this.evictions = evictions;
+      this.expirations = expirations;
+      this.invalidations = invalidations;
+    }
+
+    public int getSize() {
+      return size;
+    }
+
+    public int getMaxSize() {
+      return maxSize;
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    public long getExpirations() {
+      return expirations;
+    }
+
+    public long getInvalidations() {
+      return invalidations;
+    }
+
+    public double getHitRate() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "MemberCache [size=%d, max=%d, hits=%d, misses=%d, hitRate=%.3f, "
+              + "evictions=%d, expirations=%d, invalidations=%d]",
+          size, maxSize, hits, misses, getHitRate(), evictions, expirations,
+          invalidations);
+    }
+  }
+}
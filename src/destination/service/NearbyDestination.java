@@ -0,0 +1,34 @@
+package destination.service;
+
+import destination.entity.Destination;
+
+/**
+ * A destination returned by
+ * {@link DestinationService#findNearby(double, double, double, int)} together
+ * with its distance from the search point.
+ *
+ * @author Promineo
+ *
+ */
+public class NearbyDestination {
+  private final Destination destination;
+  private final double distanceKm;
+
+  public NearbyDestination(Destination destination, double distanceKm) {
+    this.destination = destination;
+    this.distanceKm = distanceKm;
+  }
+
+  public Destination getDestination() {
+    return destination;
+  }
+
+  public double getDistanceKm() {
+    return distanceKm;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%.2f km: %s", distanceKm, destination);
+  }
+}
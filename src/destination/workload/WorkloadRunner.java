@@ -0,0 +1,621 @@
+package destination.workload;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+import destination.entity.Comment;
+import destination.entity.Destination;
+import destination.entity.Member;
+import destination.exception.DestinationException;
+import destination.metrics.LatencyHistogram;
+import destination.service.DestinationService;
+
+/**
+ * Runs a scripted workload against {@link DestinationService} without the
+ * interactive menus, so production-like load can be reproduced. Start it
+ * through {@code DestinationsApp} with {@code --workload}:
+ *
+ * <pre>
+ * java destination.DestinationsApp --workload --threads=16 --duration=60
+ *     --members=10000 --destinations=1000
+ *     --mix=fetchMember:50,listMembers:10,modifyMember:10,createComment:30
+ *     --csv=workload.csv
+ * </pre>
+ *
+ * The options are:
+ * <ul>
+ * <li>{@code --mix} The operations to run and their relative weights. The
+ * operations are createMember, fetchMember, listMembers, modifyMember,
+ * deleteMember, createDestination, fetchDestination, findNearby,
+ * searchDestinations and createComment. By default, all of them are run.</li>
+ * <li>{@code --threads} The number of worker threads (default 8).</li>
+ * <li>{@code --rps} The target total requests per second. Without it, every
+ * thread runs operations back to back as fast as it can. With it, operations
+ * are started on a fixed schedule, and latency is measured from the time an
+ * operation was due, so time spent falling behind counts against it.</li>
+ * <li>{@code --duration} How long to run in seconds (default 30).</li>
+ * <li>{@code --members}, {@code --destinations}, {@code --comments} The size
+ * of the data set loaded before the run (default 1000, 100 and 1000).</li>
+ * <li>{@code --csv} A file for per-second and total results, for graphing.</li>
+ * </ul>
+ * Loading the data set <b>drops and recreates the tables</b> in the schema
+ * that {@code DbConnection} connects to, so point it at a MySQL instance that
+ * holds nothing you want to keep.
+ *
+ * @author Promineo
+ *
+ */
+public class WorkloadRunner {
+  private static final String DEFAULT_MIX = "createMember:5,fetchMember:30,"
+      + "listMembers:10,modifyMember:10,deleteMember:2,createDestination:3,"
+      + "fetchDestination:10,findNearby:10,searchDestinations:10,"
+      + "createComment:10";
+
+  private static final String[] WORDS = {"falls", "lake", "trail", "summit",
+      "forest", "canyon", "river", "meadow", "ridge", "beach", "cave", "view",
+      "waterfall", "glacier", "desert", "island", "bridge", "park"};
+
+  /* Destinations are placed in a box around Oregon. */
+  private static final double MIN_LAT = 42.0;
+  private static final double MAX_LAT = 46.0;
+  private static final double MIN_LON = -124.0;
+  private static final double MAX_LON = -117.0;
+
+  private final DestinationService destinationService;
+  private final int threads;
+  private final int targetRps;
+  private final Duration duration;
+  private final Operation[] schedule;
+  private final Map<Operation, OperationStats> stats = new LinkedHashMap<>();
+
+  /*
+   * IDs are handed out in order by AUTO_INCREMENT, so the highest ID known is
+   * enough to pick a random row. Some of the rows picked will have been
+   * deleted; those calls still count.
+   */
+  private final AtomicInteger maxMemberId = new AtomicInteger();
+  private final AtomicInteger maxDestinationId = new AtomicInteger();
+  private final AtomicInteger emailSequence = new AtomicInteger();
+
+  private final AtomicLong nextStartNanos = new AtomicLong();
+  private final List<String> timeline = new ArrayList<>();
+
+  /**
+   * The workload operations.
+   */
+  enum Operation {
+    CREATE_MEMBER("createMember"), FETCH_MEMBER("fetchMember"),
+    LIST_MEMBERS("listMembers"), MODIFY_MEMBER("modifyMember"),
+    DELETE_MEMBER("deleteMember"), CREATE_DESTINATION("createDestination"),
+    FETCH_DESTINATION("fetchDestination"), FIND_NEARBY("findNearby"),
+    SEARCH_DESTINATIONS("searchDestinations"),
+    CREATE_COMMENT("createComment");
+
+    private final String optionName;
+
+    Operation(String optionName) {
+      this.optionName = optionName;
+    }
+
+    static Operation of(String optionName) {
+      for(Operation operation : values()) {
+        if(operation.optionName.equalsIgnoreCase(optionName)) {
+          return operation;
+        }
+      }
+
+      throw new DestinationException(
+          "'" + optionName + "' is not a workload operation.");
+    }
+
+    @Override
+    public String toString() {
+      return optionName;
+    }
+  }
+
+  /**
+   * Run the workload described by the command line options.
+   *
+   * @param args The options described in the class comment.
+   */
+  public static void main(String[] args) {
+    Map<String, String> options = parseOptions(args);
+    DestinationService destinationService = new DestinationService();
+
+    try {
+      WorkloadRunner runner = new WorkloadRunner(destinationService,
+          Integer.parseInt(options.getOrDefault("threads", "8")),
+          Integer.parseInt(options.getOrDefault("rps", "0")),
+          Duration.ofSeconds(
+              Long.parseLong(options.getOrDefault("duration", "30"))),
+          parseMix(options.getOrDefault("mix", DEFAULT_MIX)));
+
+      runner.loadDataSet(
+          Integer.parseInt(options.getOrDefault("members", "1000")),
+          Integer.parseInt(options.getOrDefault("destinations", "100")),
+          Integer.parseInt(options.getOrDefault("comments", "1000")));
+
+      runner.run();
+      runner.printSummary(System.out);
+
+      if(options.containsKey("csv")) {
+        Path csv = Path.of(options.get("csv"));
+        runner.writeCsv(csv);
+        System.out.println("CSV written to " + csv.toAbsolutePath());
+      }
+    }
+    finally {
+      destinationService.shutdown();
+    }
+  }
+
+  /**
+   * Convert "--name=value" arguments into a map. An argument without a value
+   * (like "--workload") maps to an empty string.
+   *
+   * @param args The command line arguments.
+   * @return The options.
+   */
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new HashMap<>();
+
+    for(String arg : args) {
+      if(!arg.startsWith("--")) {
+        throw new DestinationException("'" + arg + "' is not a valid option.");
+      }
+
+      int equals = arg.indexOf('=');
+
+      if(equals < 0) {
+        options.put(arg.substring(2), "");
+      }
+      else {
+        options.put(arg.substring(2, equals), arg.substring(equals + 1));
+      }
+    }
+
+    return options;
+  }
+
+  /**
+   * Turn "name:weight,name:weight" into a schedule array where each operation
+   * appears as many times as its weight. Picking a random entry then gives
+   * each operation its share of the calls.
+   *
+   * @param mix The mix option.
+   * @return The schedule.
+   */
+  static Operation[] parseMix(String mix) {
+    List<Operation> schedule = new ArrayList<>();
+
+    for(String entry : mix.split(",")) {
+      String[] parts = entry.trim().split(":");
+      Operation operation = Operation.of(parts[0].trim());
+      int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+
+      for(int count = 0; count < weight; count++) {
+        schedule.add(operation);
+      }
+    }
+
+    if(schedule.isEmpty()) {
+      throw new DestinationException("The workload mix is empty.");
+    }
+
+    return schedule.toArray(new Operation[0]);
+  }
+
+  /**
+   * Create the runner.
+   *
+   * @param destinationService The service being driven.
+   * @param threads The number of worker threads.
+   * @param targetRps The target requests per second, or 0 to run flat out.
+   * @param duration How long to run.
+   * @param schedule The weighted operation schedule from
+   *        {@link #parseMix(String)}.
+   */
+  WorkloadRunner(DestinationService destinationService, int threads,
+      int targetRps, Duration duration, Operation[] schedule) {
+    this.destinationService = destinationService;
+    this.threads = threads;
+    this.targetRps = targetRps;
+    this.duration = duration;
+    this.schedule = schedule;
+
+    for(Operation operation : schedule) {
+      stats.computeIfAbsent(operation, OperationStats::new);
+    }
+  }
+
+  /**
+   * Recreate the tables and load the data set.
+   *
+   * @param members The number of members.
+   * @param destinations The number of destinations.
+   * @param comments The number of comments.
+   */
+  void loadDataSet(int members, int destinations, int comments) {
+    System.out.printf("Loading %d members, %d destinations and %d comments%n",
+        members, destinations, comments);
+
+    destinationService.createTables();
+
+    Iterable<Member> newMembers =
+        () -> IntStream.range(0, members).mapToObj(unused -> newMember())
+            .iterator();
+
+    List<Integer> memberIds =
+        destinationService.createMembers(newMembers).getGeneratedIds();
+
+    for(Integer memberId : memberIds) {
+      if(Objects.nonNull(memberId)) {
+        maxMemberId.accumulateAndGet(memberId, Math::max);
+      }
+    }
+
+    if(maxMemberId.get() == 0) {
+      return;
+    }
+
+    for(int count = 0; count < destinations; count++) {
+      maxDestinationId.accumulateAndGet(
+          destinationService.createDestination(newDestination()), Math::max);
+    }
+
+    if(maxDestinationId.get() > 0) {
+      for(int count = 0; count < comments; count++) {
+        destinationService.createComment(newComment());
+      }
+
+      destinationService.flushComments();
+    }
+
+    destinationService.loadDestinationIndexes();
+  }
+
+  /**
+   * Run the workload for the configured duration and wait for the workers to
+   * finish.
+   */
+  void run() {
+    System.out.printf("Running %s for %ds on %d threads%s%n",
+        stats.keySet(), duration.toSeconds(), threads,
+        targetRps > 0 ? " at " + targetRps + " requests/s" : "");
+
+    long start = System.nanoTime();
+    long end = start + duration.toNanos();
+    List<Thread> workers = new ArrayList<>();
+
+    nextStartNanos.set(start);
+
+    for(int index = 0; index < threads; index++) {
+      Thread worker = new Thread(() -> work(end), "workload-" + index);
+      worker.start();
+      workers.add(worker);
+    }
+
+    int second = 0;
+
+    while (System.nanoTime() < end) {
+      LockSupport.parkNanos(
+          Math.min(TimeUnit.SECONDS.toNanos(1), end - System.nanoTime()));
+      second++;
+
+      for(OperationStats operation : stats.values()) {
+        operation.closeInterval(second);
+      }
+    }
+
+    try {
+      for(Thread worker : workers) {
+        worker.join();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DestinationException(e);
+    }
+  }
+
+  /**
+   * The worker loop. Pick an operation, run it and record how long it took.
+   *
+   * @param end When to stop (a System.nanoTime() value).
+   */
+  private void work(long end) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    while (true) {
+      long start = nextStart();
+
+      if(start >= end) {
+        return;
+      }
+
+      Operation operation = schedule[random.nextInt(schedule.length)];
+      Throwable error = null;
+
+      try {
+        execute(operation, random);
+      }
+      catch (Exception e) {
+        error = e;
+      }
+
+      stats.get(operation).record(System.nanoTime() - start, error);
+    }
+  }
+
+  /**
+   * Return the time the next operation should start. When running flat out,
+   * that is now. With a target rate, each call claims the next slot in a
+   * fixed schedule and waits for it. The slot time is returned (not the time
+   * the wait ended) so that falling behind the schedule shows up as latency.
+   *
+   * @return The start time (a System.nanoTime() value).
+   */
+  private long nextStart() {
+    if(targetRps <= 0) {
+      return System.nanoTime();
+    }
+
+    long slot = nextStartNanos.getAndAdd(TimeUnit.SECONDS.toNanos(1)
+        / targetRps);
+    long wait = slot - System.nanoTime();
+
+    if(wait > 0) {
+      LockSupport.parkNanos(wait);
+    }
+
+    return slot;
+  }
+
+  /**
+   * Run one operation.
+   *
+   * @param operation The operation.
+   * @param random The worker's random number generator.
+   * @throws Exception Thrown if the operation fails.
+   */
+  private void execute(Operation operation, ThreadLocalRandom random)
+      throws Exception {
+    switch(operation) {
+      case CREATE_MEMBER:
+        for(Integer memberId : destinationService
+            .createMembers(List.of(newMember())).getGeneratedIds()) {
+          if(Objects.nonNull(memberId)) {
+            maxMemberId.accumulateAndGet(memberId, Math::max);
+          }
+        }
+        break;
+
+      case FETCH_MEMBER:
+        destinationService.fetchMemberById(randomMemberId(random));
+        break;
+
+      case LIST_MEMBERS:
+        destinationService.fetchMemberPage(null, 20);
+        break;
+
+      case MODIFY_MEMBER:
+        destinationService.modifyMember(Member.builder()
+            .memberId(randomMemberId(random))
+            .phoneNumber("555-" + random.nextInt(10_000)).build());
+        break;
+
+      case DELETE_MEMBER:
+        destinationService.deleteMembers(new int[] {randomMemberId(random)},
+            1, null);
+        break;
+
+      case CREATE_DESTINATION:
+        maxDestinationId.accumulateAndGet(
+            destinationService.createDestination(newDestination()), Math::max);
+        break;
+
+      case FETCH_DESTINATION:
+        destinationService.fetchDestinationById(randomDestinationId(random));
+        break;
+
+      case FIND_NEARBY:
+        destinationService.findNearby(
+            random.nextDouble(MIN_LAT, MAX_LAT),
+            random.nextDouble(MIN_LON, MAX_LON), 25, 10);
+        break;
+
+      case SEARCH_DESTINATIONS:
+        destinationService.searchDestinations(
+            WORDS[random.nextInt(WORDS.length)], 10);
+        break;
+
+      case CREATE_COMMENT:
+        /* Wait for the commit so the latency covers the write. */
+        destinationService.createComment(newComment()).join();
+        break;
+
+      default:
+        throw new DestinationException("No code for " + operation);
+    }
+  }
+
+  private int randomMemberId(ThreadLocalRandom random) {
+    return random.nextInt(Math.max(maxMemberId.get(), 1)) + 1;
+  }
+
+  private int randomDestinationId(ThreadLocalRandom random) {
+    return random.nextInt(Math.max(maxDestinationId.get(), 1)) + 1;
+  }
+
+  private Member newMember() {
+    int sequence = emailSequence.incrementAndGet();
+
+    // @formatter:off
+    return Member.builder()
+        .firstName("First" + sequence)
+        .lastName("Last" + sequence)
+        .email("workload" + sequence + "@example.com")
+        .phoneNumber("555-" + sequence)
+        .password("password" + sequence)
+        .build(); // @formatter:on
+  }
+
+  private Destination newDestination() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String first = WORDS[random.nextInt(WORDS.length)];
+    String second = WORDS[random.nextInt(WORDS.length)];
+
+    // @formatter:off
+    return Destination.builder()
+        .memberId(randomMemberId(random))
+        .name(first + " " + second)
+        .description("A " + first + " near a " + second + ".")
+        .geolocation(String.format("%.5f,%.5f",
+            random.nextDouble(MIN_LAT, MAX_LAT),
+            random.nextDouble(MIN_LON, MAX_LON)))
+        .difficulty(random.nextInt(1, 6))
+        .build(); // @formatter:on
+  }
+
+  private Comment newComment() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+    // @formatter:off
+    return Comment.builder()
+        .memberId(randomMemberId(random))
+        .destinationId(randomDestinationId(random))
+        .comment("Loved the " + WORDS[random.nextInt(WORDS.length)] + "!")
+        .build(); // @formatter:on
+  }
+
+  /**
+   * Print throughput and latency percentiles for each operation.
+   *
+   * @param out Where to print.
+   */
+  void printSummary(PrintStream out) {
+    double seconds = duration.toNanos() / 1e9;
+
+    out.println();
+    out.printf("%-20s %10s %8s %10s %10s %10s %10s %10s %10s%n", "Operation",
+        "Count", "Errors", "Ops/s", "p50(us)", "p90(us)", "p99(us)",
+        "p99.9(us)", "Max(us)");
+
+    for(OperationStats operation : stats.values()) {
+      LatencyHistogram histogram = operation.total;
+
+      out.printf("%-20s %10d %8d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+          operation.operation, histogram.getCount(), operation.errors.sum(),
+          histogram.getCount() / seconds,
+          histogram.getValueAtPercentile(50) / 1000.0,
+          histogram.getValueAtPercentile(90) / 1000.0,
+          histogram.getValueAtPercentile(99) / 1000.0,
+          histogram.getValueAtPercentile(99.9) / 1000.0,
+          histogram.getMax() / 1000.0);
+    }
+  }
+
+  /**
+   * Write one CSV row per operation per second, followed by one "total" row
+   * per operation.
+   *
+   * @param file The CSV file.
+   */
+  void writeCsv(Path file) {
+    List<String> lines = new ArrayList<>();
+
+    lines.add("second,operation,count,errors,opsPerSecond,meanMicros,"
+        + "p50Micros,p90Micros,p99Micros,p999Micros,maxMicros");
+
+    synchronized(timeline) {
+      lines.addAll(timeline);
+    }
+
+    double seconds = duration.toNanos() / 1e9;
+
+    for(OperationStats operation : stats.values()) {
+      lines.add(csvRow("total", operation.operation, operation.total,
+          operation.errors.sum(), seconds));
+    }
+
+    try {
+      Files.write(file, lines);
+    }
+    catch (IOException e) {
+      throw new DestinationException(e);
+    }
+  }
+
+  private static String csvRow(String second, Operation operation,
+      LatencyHistogram histogram, long errors, double seconds) {
+    return String.format("%s,%s,%d,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f",
+        second, operation, histogram.getCount(), errors,
+        histogram.getCount() / seconds, histogram.getMean() / 1000.0,
+        histogram.getValueAtPercentile(50) / 1000.0,
+        histogram.getValueAtPercentile(90) / 1000.0,
+        histogram.getValueAtPercentile(99) / 1000.0,
+        histogram.getValueAtPercentile(99.9) / 1000.0,
+        histogram.getMax() / 1000.0);
+  }
+
+  /**
+   * The latencies and errors for one operation, for the whole run and for the
+   * current one-second interval. At the end of each second the interval is
+   * swapped for a fresh one and written to the timeline.
+   */
+  private class OperationStats {
+    private final Operation operation;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicReference<Interval> interval =
+        new AtomicReference<>(new Interval());
+
+    private OperationStats(Operation operation) {
+      this.operation = operation;
+    }
+
+    void record(long nanos, Throwable error) {
+      Interval current = interval.get();
+
+      total.record(nanos);
+      current.histogram.record(nanos);
+
+      if(Objects.nonNull(error)) {
+        errors.increment();
+        current.errors.increment();
+      }
+    }
+
+    void closeInterval(int second) {
+      Interval closed = interval.getAndSet(new Interval());
+      String row = csvRow(Integer.toString(second), operation,
+          closed.histogram, closed.errors.sum(), 1);
+
+      synchronized(timeline) {
+        timeline.add(row);
+      }
+    }
+  }
+
+  private static class Interval {
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+  }
+}
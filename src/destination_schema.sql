@@ -23,6 +23,7 @@ CREATE TABLE destinations (
   difficulty int,
   publish_timestamp timestamp not null DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (destination_id),
+  KEY (publish_timestamp),
   FOREIGN KEY (member_id) REFERENCES members (member_id)
 );
 